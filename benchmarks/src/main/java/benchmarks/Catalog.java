@@ -0,0 +1,47 @@
+package benchmarks;
+
+import entity.Category;
+import entity.Ingredient;
+import entity.Sandwich;
+
+/**
+ * The catalog of the DatabaseSeeder, built in memory for the benchmarks
+ */
+public class Catalog {
+
+    private static int counter = 0;
+
+    public static Ingredient ingredient(Category category, String name, double price) {
+        Ingredient ingredient = new Ingredient(category, name, price, name);
+        ingredient.setId("ingredient-" + counter++);
+        return ingredient;
+    }
+
+    public static Category category(String name) {
+        Category category = new Category(name);
+        category.setId("category-" + counter++);
+        return category;
+    }
+
+    /**
+     * Method that builds "Le Marseillais", a MOYEN sandwich with 8 ingredients
+     *
+     * @return Sandwich
+     */
+    public static Sandwich marseillais() {
+        Category crudite = category("Crudité");
+
+        Sandwich sandwich = new Sandwich("MOYEN", "Le Marseillais", "Le sandwich qui craint dégun",
+                ingredient(category("Pain"), "Pain Blanc", 1.00),
+                ingredient(category("Salade"), "Roquette", 1.00),
+                ingredient(crudite, "Onion", 1.00),
+                ingredient(category("Charcuterie"), "Bacon", 2.00),
+                ingredient(category("Viande"), "Merguez", 2.00),
+                ingredient(category("Fromage"), "Cheddar", 1.50),
+                ingredient(category("Sauce"), "A1 Original Sauce (BBQ)", 1.75),
+                ingredient(crudite, "Tomate", 1.50));
+        sandwich.setId("sandwich-" + counter++);
+        sandwich.calculatePrice();
+        return sandwich;
+    }
+}
@@ -0,0 +1,103 @@
+package benchmarks;
+
+import com.fasterxml.jackson.core.JsonFactory;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.dataformat.smile.SmileFactory;
+import entity.Account;
+import entity.Ingredient;
+import entity.Sandwich;
+import entity.Shipment;
+import org.openjdk.jmh.annotations.*;
+import provider.Filter.GzipOutputStream;
+import provider.SmileProvider;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.zip.GZIPInputStream;
+
+/**
+ * A page of /orders/items (20 orders of 3 sandwiches, with their links) in each format and compression,
+ * the bytes on the wire are printed at the start of each
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class EncodingBenchmark {
+
+    @Param({"json", "smile"})
+    private String format;
+
+    // 0 : not compressed, else the level of GZIP
+    @Param({"0", "1", "6"})
+    private int level;
+
+    private ObjectMapper mapper;
+    private List<Shipment> orders;
+
+    @Setup
+    public void setup() throws IOException {
+        mapper = SmileProvider.mapper(format.equals("smile") ? new SmileFactory() : new JsonFactory());
+
+        Account customer = new Account("Jean", "jean@bombeur.fr", "password");
+        orders = new ArrayList<>();
+        for (int i = 0; i < 20; i++) {
+            List<Sandwich> sandwiches = new ArrayList<>();
+            for (int j = 0; j < 3; j++) {
+                Sandwich sandwich = Catalog.marseillais();
+                sandwich.addLink("http://localhost:8080/le-bon-sandwich-api/api/sandwiches/" + sandwich.getId(), "self");
+                for (Ingredient ingredient : sandwich.getIngredientsList())
+                    ingredient.addLink("http://localhost:8080/le-bon-sandwich-api/api/ingredients/" + ingredient.getId(), "self");
+                sandwiches.add(sandwich);
+            }
+            Shipment order = new Shipment(customer, "01/01/2030 12:00", sandwiches);
+            order.setId("order-" + i);
+            order.addLink("http://localhost:8080/le-bon-sandwich-api/api/orders/" + order.getId(), "self");
+            orders.add(order);
+        }
+
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        encode(out);
+        System.out.println();
+        System.out.println(format + (level == 0 ? "" : " gzip " + level) + " : " + out.size() + " bytes");
+
+        if (level != 0) {
+            ByteArrayOutputStream plain = new ByteArrayOutputStream();
+            mapper.writeValue(plain, orders);
+            ByteArrayOutputStream inflated = new ByteArrayOutputStream();
+            try (GZIPInputStream in = new GZIPInputStream(new ByteArrayInputStream(out.toByteArray()))) {
+                byte[] buffer = new byte[8192];
+                for (int n; (n = in.read(buffer)) > 0; )
+                    inflated.write(buffer, 0, n);
+            }
+            if (!Arrays.equals(plain.toByteArray(), inflated.toByteArray()))
+                throw new IllegalStateException("GZIP round trip failed");
+        }
+    }
+
+    @Benchmark
+    public int encode() throws IOException {
+        ByteArrayOutputStream out = new ByteArrayOutputStream(64 * 1024);
+        encode(out);
+        return out.size();
+    }
+
+    private void encode(OutputStream out) throws IOException {
+        if (level == 0) {
+            mapper.writeValue(out, orders);
+            return;
+        }
+
+        GzipOutputStream gzip = new GzipOutputStream(out, level);
+        mapper.writeValue(gzip, orders);
+        gzip.finish();
+    }
+}
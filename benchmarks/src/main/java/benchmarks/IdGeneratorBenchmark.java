@@ -0,0 +1,36 @@
+package benchmarks;
+
+import control.IdGenerator;
+import control.SnowflakeIdGenerator;
+import control.UuidIdGenerator;
+import org.openjdk.jmh.annotations.*;
+
+import java.util.concurrent.TimeUnit;
+
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class IdGeneratorBenchmark {
+
+    @Param({"snowflake", "uuid"})
+    public String generator;
+
+    private IdGenerator ids;
+
+    @Setup
+    public void setup() {
+        ids = generator(generator);
+    }
+
+    @Benchmark
+    public String next() {
+        return ids.next();
+    }
+
+    static IdGenerator generator(String name) {
+        return "uuid".equals(name) ? new UuidIdGenerator() : new SnowflakeIdGenerator(1);
+    }
+}
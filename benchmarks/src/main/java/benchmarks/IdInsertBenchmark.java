@@ -0,0 +1,107 @@
+package benchmarks;
+
+import control.IdGenerator;
+import org.openjdk.jmh.annotations.*;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.sql.*;
+import java.util.Comparator;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Stream;
+
+/**
+ * Inserts of sandwiches and of their join rows in H2, with the tables Hibernate creates for them
+ * The size on disk of the tables and of their indexes is printed at the end of each run
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class IdInsertBenchmark {
+
+    private final static int SANDWICHES = 1000;
+    private final static int INGREDIENTS = 50;
+    private final static int INGREDIENTS_PER_SANDWICH = 5;
+
+    @Param({"snowflake", "uuid"})
+    public String generator;
+
+    private IdGenerator ids;
+    private Path directory;
+    private Connection connection;
+    private PreparedStatement insertSandwich;
+    private PreparedStatement insertIngredient;
+    private String[] ingredients;
+
+    @Setup(Level.Trial)
+    public void setup() throws IOException, SQLException {
+        ids = IdGeneratorBenchmark.generator(generator);
+        directory = Files.createTempDirectory("ids");
+        connection = DriverManager.getConnection("jdbc:h2:" + directory.resolve("ids").toAbsolutePath(), "sa", "");
+        connection.setAutoCommit(false);
+
+        try (Statement statement = connection.createStatement()) {
+            statement.execute("CREATE TABLE Sandwich (id VARCHAR(255) PRIMARY KEY, name VARCHAR(255), price DOUBLE)");
+            statement.execute("CREATE TABLE Sandwich_Ingredient (Sandwich_id VARCHAR(255) NOT NULL, ingredientsList_id VARCHAR(255) NOT NULL)");
+            statement.execute("CREATE INDEX Sandwich_Ingredient_Sandwich ON Sandwich_Ingredient (Sandwich_id)");
+            statement.execute("CREATE INDEX Sandwich_Ingredient_Ingredient ON Sandwich_Ingredient (ingredientsList_id)");
+        }
+        connection.commit();
+
+        ingredients = new String[INGREDIENTS];
+        for (int i = 0; i < INGREDIENTS; i++)
+            ingredients[i] = ids.next();
+
+        insertSandwich = connection.prepareStatement("INSERT INTO Sandwich (id, name, price) VALUES (?, 'CUSTOM', 8.5)");
+        insertIngredient = connection.prepareStatement("INSERT INTO Sandwich_Ingredient (Sandwich_id, ingredientsList_id) VALUES (?, ?)");
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(SANDWICHES)
+    public void insert() throws SQLException {
+        for (int i = 0; i < SANDWICHES; i++) {
+            String id = ids.next();
+
+            insertSandwich.setString(1, id);
+            insertSandwich.addBatch();
+
+            for (int j = 0; j < INGREDIENTS_PER_SANDWICH; j++) {
+                insertIngredient.setString(1, id);
+                insertIngredient.setString(2, ingredients[(i + j) % INGREDIENTS]);
+                insertIngredient.addBatch();
+            }
+        }
+
+        insertSandwich.executeBatch();
+        insertIngredient.executeBatch();
+        connection.commit();
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() throws IOException, SQLException {
+        long rows;
+        try (Statement statement = connection.createStatement();
+             ResultSet result = statement.executeQuery("SELECT COUNT(*) FROM Sandwich")) {
+            result.next();
+            rows = result.getLong(1);
+            // Rewrites the file with only the live pages : its size is the one of the tables and indexes
+            statement.execute("SHUTDOWN COMPACT");
+        }
+
+        long bytes;
+        try (Stream<Path> files = Files.walk(directory)) {
+            bytes = files.filter(Files::isRegularFile).mapToLong(path -> path.toFile().length()).sum();
+        }
+
+        System.out.printf("%n%s : %d sandwiches with %d ingredients, %d bytes per sandwich on disk%n",
+                generator, rows, INGREDIENTS_PER_SANDWICH, bytes / rows);
+
+        try (Stream<Path> files = Files.walk(directory)) {
+            files.sorted(Comparator.reverseOrder()).forEach(path -> path.toFile().delete());
+        }
+    }
+}
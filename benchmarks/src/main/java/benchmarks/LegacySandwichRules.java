@@ -0,0 +1,44 @@
+package benchmarks;
+
+import entity.Sandwich;
+
+/**
+ * Sandwich.validate as it was before the composition rules, kept as the baseline
+ */
+public class LegacySandwichRules {
+
+    public static boolean validate(Sandwich sandwich) {
+        boolean salad =    sandwich.getIngredient("Salade") != null;
+        boolean meat =     sandwich.getIngredient("Viande") != null;
+        boolean coldMeat = sandwich.getIngredient("Charcuterie") != null;
+        boolean cheese =   sandwich.getIngredient("Fromage") != null;
+        boolean sauce =    sandwich.getIngredient("Sauce") != null;
+        boolean crudite =  sandwich.getIngredient("Crudité") != null;
+        boolean bread =    sandwich.getIngredient("Pain") != null;
+
+        int count = sandwich.getIngredientsList().size();
+
+        if (salad && meat && coldMeat && cheese && sauce && crudite && bread) {
+            switch (sandwich.getSize()) {
+                case ("PETIT"):
+                    if (count == 7)
+                        return true;
+                    break;
+                case ("MOYEN"):
+                    if (count <= 8)
+                        return true;
+                    break;
+                case ("GRAND"):
+                    if (count <= 9)
+                        return true;
+                    break;
+                case ("OGRE"):
+                    if (count <= 10)
+                        return true;
+                    break;
+            }
+        }
+
+        return false;
+    }
+}
@@ -0,0 +1,44 @@
+package benchmarks;
+
+import control.RequestMetrics;
+import control.StatementCounter;
+import org.openjdk.jmh.annotations.*;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * What the metrics filter adds to each request : the timer lookup, start and stop, the statement counts, from several threads
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@Threads(4)
+public class MetricsBenchmark {
+
+    private RequestMetrics requestMetrics;
+
+    @Setup
+    public void setup() {
+        requestMetrics = new RequestMetrics();
+    }
+
+    @Benchmark
+    public long record() {
+        RequestMetrics.Timer timer = requestMetrics.timer("GET /orders/items");
+        StatementCounter.Counts counts = StatementCounter.begin();
+        long start = timer.start();
+        StatementCounter.finish();
+        timer.stop(start, 200, counts);
+        return start;
+    }
+
+    @Benchmark
+    public int scrape() {
+        StringBuilder out = new StringBuilder(4096);
+        requestMetrics.scrape(out);
+        return out.length();
+    }
+}
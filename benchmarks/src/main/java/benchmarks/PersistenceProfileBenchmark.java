@@ -0,0 +1,104 @@
+package benchmarks;
+
+import control.Ids;
+import entity.Category;
+import entity.Ingredient;
+import org.openjdk.jmh.annotations.*;
+
+import javax.persistence.EntityManager;
+import javax.persistence.EntityManagerFactory;
+import javax.persistence.Persistence;
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Properties;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Inserts and list reads of ingredients through Hibernate, with each persistence profile of src/main/config
+ * The prepared statement cache and the pool belong to the WildFly datasource, they aren't part of it
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class PersistenceProfileBenchmark {
+
+    private final static int INSERTS = 500;
+    private final static int READS = 2000;
+
+    @Param({"dev", "prod"})
+    public String profile;
+
+    private EntityManagerFactory factory;
+    private EntityManager entityManager;
+    private Category inserted;
+    private Category read;
+
+    @Setup(Level.Trial)
+    public void setup() throws IOException {
+        Map<String, Object> properties = new HashMap<>();
+        try (InputStream in = getClass().getResourceAsStream("/persistence-" + profile + ".properties")) {
+            Properties file = new Properties();
+            file.load(in);
+            for (String name : file.stringPropertyNames())
+                properties.put(name, file.getProperty(name));
+        }
+        properties.put("hibernate.show_sql", "false");
+        properties.put("javax.persistence.jdbc.url", "jdbc:h2:mem:" + profile + ";DB_CLOSE_DELAY=-1");
+
+        factory = Persistence.createEntityManagerFactory("benchmarksPU", properties);
+        entityManager = factory.createEntityManager();
+
+        entityManager.getTransaction().begin();
+        inserted = category("Inserted");
+        read = category("Read");
+        for (int i = 0; i < READS; i++)
+            entityManager.persist(ingredient(read, i));
+        entityManager.getTransaction().commit();
+        entityManager.clear();
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(INSERTS)
+    public void insert() {
+        entityManager.getTransaction().begin();
+        for (int i = 0; i < INSERTS; i++)
+            entityManager.persist(ingredient(inserted, i));
+        entityManager.getTransaction().commit();
+        entityManager.clear();
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(READS)
+    public int read() {
+        List<Ingredient> ingredients = entityManager.createQuery("SELECT i FROM Ingredient i WHERE i.category = :category", Ingredient.class)
+                .setParameter("category", read)
+                .getResultList();
+        entityManager.clear();
+        return ingredients.size();
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        entityManager.close();
+        factory.close();
+    }
+
+    private Category category(String name) {
+        Category category = new Category(name);
+        category.setId(Ids.next());
+        entityManager.persist(category);
+        return category;
+    }
+
+    private static Ingredient ingredient(Category category, int i) {
+        Ingredient ingredient = new Ingredient(category, "Ingredient " + i, 1.50, "An ingredient of the benchmark");
+        ingredient.setId(Ids.next());
+        return ingredient;
+    }
+}
@@ -0,0 +1,65 @@
+package benchmarks;
+
+import control.ReceiptGenerator;
+import entity.Account;
+import entity.Sandwich;
+import entity.Shipment;
+import org.openjdk.jmh.annotations.*;
+
+import java.io.ByteArrayOutputStream;
+import java.io.InputStream;
+import java.net.URL;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Rendering of a receipt in memory, with the logo of the application
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class ReceiptBenchmark {
+
+    private Shipment order;
+    private Path logo;
+    private URL logoUrl;
+
+    @Setup
+    public void setup() throws Exception {
+        Account customer = new Account("Jean", "jean@bombeur.fr", "password");
+        customer.createCard();
+
+        List<Sandwich> sandwiches = new ArrayList<>();
+        for (int i = 0; i < 5; i++)
+            sandwiches.add(Catalog.marseillais());
+
+        order = new Shipment(customer, "01/01/2030 12:00", sandwiches);
+        order.setId("receipt");
+
+        // iText reads the logo from a file
+        logo = Files.createTempFile("logo", ".jpg");
+        try (InputStream in = getClass().getResourceAsStream("/logo.jpg")) {
+            Files.copy(in, logo, StandardCopyOption.REPLACE_EXISTING);
+        }
+        logoUrl = logo.toUri().toURL();
+    }
+
+    @Benchmark
+    public int render() throws Exception {
+        ByteArrayOutputStream out = new ByteArrayOutputStream(64 * 1024);
+        ReceiptGenerator.write(order, null, logoUrl, out);
+        return out.size();
+    }
+
+    @TearDown
+    public void tearDown() throws Exception {
+        Files.deleteIfExists(logo);
+    }
+}
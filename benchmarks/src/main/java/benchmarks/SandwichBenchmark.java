@@ -0,0 +1,36 @@
+package benchmarks;
+
+import entity.Sandwich;
+import org.openjdk.jmh.annotations.*;
+
+import java.util.concurrent.TimeUnit;
+
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class SandwichBenchmark {
+
+    private Sandwich sandwich;
+    private boolean grand;
+
+    @Setup
+    public void setup() {
+        sandwich = Catalog.marseillais();
+    }
+
+    @Benchmark
+    public double calculatePrice() {
+        sandwich.calculatePrice();
+        return sandwich.getPrice();
+    }
+
+    // Goes from MOYEN to GRAND and back, the 8 ingredients fit both sizes
+    @Benchmark
+    public Sandwich update() {
+        grand = !grand;
+        return sandwich.update(grand ? "GRAND" : "MOYEN", sandwich.getName(), sandwich.getDescription());
+    }
+}
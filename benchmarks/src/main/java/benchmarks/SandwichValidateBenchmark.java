@@ -0,0 +1,32 @@
+package benchmarks;
+
+import entity.Sandwich;
+import org.openjdk.jmh.annotations.*;
+
+import java.util.concurrent.TimeUnit;
+
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class SandwichValidateBenchmark {
+
+    private Sandwich sandwich;
+
+    @Setup
+    public void setup() {
+        sandwich = Catalog.marseillais();
+    }
+
+    @Benchmark
+    public boolean compositionRules() {
+        return sandwich.validate();
+    }
+
+    @Benchmark
+    public boolean legacy() {
+        return LegacySandwichRules.validate(sandwich);
+    }
+}
@@ -0,0 +1,54 @@
+package benchmarks;
+
+import boundary.Order.OrderRepresentation;
+import control.KeyGenerator;
+import entity.AccountRole;
+import io.jsonwebtoken.Jwts;
+import io.jsonwebtoken.SignatureAlgorithm;
+import org.openjdk.jmh.annotations.*;
+import provider.Filter.AuthenticationFilter;
+import provider.Filter.AuthorizationFilter;
+
+import javax.ws.rs.container.AsyncResponse;
+import java.lang.reflect.Method;
+import java.util.Date;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * What the filters do for each request to a secured resource
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class SecurityBenchmark {
+
+    private Method status;
+    private String token;
+
+    @Setup
+    public void setup() throws NoSuchMethodException {
+        status = OrderRepresentation.class.getMethod("status", AsyncResponse.class, String.class, Integer.class);
+
+        // As AuthenticationEndpoint issues it
+        token = Jwts.builder()
+                .setSubject("jean@bombeur.fr")
+                .setIssuer("http://localhost:8080/le-bon-sandwich-api/api/authentication")
+                .setIssuedAt(new Date())
+                .setExpiration(new Date(System.currentTimeMillis() + TimeUnit.HOURS.toMillis(1)))
+                .signWith(SignatureAlgorithm.HS512, new KeyGenerator().generateKey())
+                .compact();
+    }
+
+    @Benchmark
+    public boolean roles() {
+        return AuthorizationFilter.isAllowed(OrderRepresentation.class, status, AccountRole.CUSTOMER);
+    }
+
+    @Benchmark
+    public String jwt() {
+        return AuthenticationFilter.subject(token);
+    }
+}
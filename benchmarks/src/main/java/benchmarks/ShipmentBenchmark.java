@@ -0,0 +1,55 @@
+package benchmarks;
+
+import entity.Account;
+import entity.Sandwich;
+import entity.Shipment;
+import org.openjdk.jmh.annotations.*;
+
+import java.text.SimpleDateFormat;
+import java.util.ArrayList;
+import java.util.Date;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class ShipmentBenchmark {
+
+    private Account customer;
+    private List<Sandwich> sandwiches;
+    private Shipment order;
+    private String tomorrow;
+
+    @Setup
+    public void setup() {
+        customer = new Account("Jean", "jean@bombeur.fr", "password");
+        sandwiches = new ArrayList<>();
+        for (int i = 0; i < 5; i++)
+            sandwiches.add(Catalog.marseillais());
+
+        order = new Shipment(customer, null, sandwiches);
+        tomorrow = new SimpleDateFormat("dd/MM/yyyy HH:mm").format(new Date(System.currentTimeMillis() + 24 * 3600 * 1000));
+    }
+
+    @Benchmark
+    public Date toDate() {
+        return order.toDate(tomorrow);
+    }
+
+    // A new order each time : the discount changes its price
+    @Benchmark
+    public double applyDiscount() {
+        Shipment shipment = new Shipment(customer, null, sandwiches);
+        shipment.applyDiscount();
+        return shipment.getPrice();
+    }
+
+    @Benchmark
+    public double getHigherPrice() {
+        return order.getHigherPrice();
+    }
+}
@@ -0,0 +1,173 @@
+package loadtest;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+import java.io.IOException;
+import java.net.URI;
+import java.net.URLEncoder;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.stream.Collectors;
+
+/**
+ * Client of the API that records every call in the stats
+ */
+public class Api {
+
+    private static final ObjectMapper MAPPER = new ObjectMapper();
+
+    private final HttpClient client;
+    private final String baseUrl;
+    private final Stats stats;
+
+    // Tokens by email, they expire after 10 minutes
+    private final Map<String, String> tokens = new ConcurrentHashMap<>();
+    private final Map<String, String> passwords = new ConcurrentHashMap<>();
+
+    public Api(HttpClient client, String baseUrl, Stats stats) {
+        this.client = client;
+        this.baseUrl = baseUrl;
+        this.stats = stats;
+    }
+
+    /**
+     * Method that creates a customer account, or an admin account if admin is true
+     * @param email of the account
+     * @param password of the account
+     * @param admin true for an admin account
+     * @return true if the account exists now
+     */
+    public boolean signup(String email, String password, boolean admin) {
+        String path = admin ? "/admin/signup" : "/accounts/signup";
+        HttpResponse<String> response = send("POST " + path, null, form(HttpRequest.newBuilder(uri(path)),
+                Map.of("name", email.substring(0, email.indexOf('@')), "email", email, "password", password)));
+        passwords.put(email, password);
+        // 409 : already created by a previous run
+        return response != null && (response.statusCode() / 100 == 2 || response.statusCode() == 409);
+    }
+
+    /**
+     * Method that returns the ids of the sandwiches
+     * @return ids
+     */
+    public String[] sandwichIds() {
+        JsonNode sandwiches = json(get("GET /sandwiches", null, "/sandwiches"));
+        if (sandwiches == null)
+            return new String[0];
+        String[] ids = new String[sandwiches.size()];
+        for (int i = 0; i < ids.length; i++)
+            ids[i] = sandwiches.get(i).get("id").asText();
+        return ids;
+    }
+
+    /**
+     * Method that creates an order with one sandwich, for tomorrow
+     * @param email of the customer
+     * @param dateTime in this format : 'dd/MM/yyyy HH:mm'
+     * @param sandwichId sandwich ordered
+     * @return the id of the order, null if it failed
+     */
+    public String createOrder(String email, String dateTime, String sandwichId) {
+        HttpRequest.Builder request = HttpRequest.newBuilder(uri("/orders"))
+                .header("Idempotency-Key", UUID.randomUUID().toString());
+        JsonNode order = json(send("POST /orders", email, form(request, Map.of("dateTime", dateTime, "sandwichId", sandwichId))));
+        return order == null ? null : order.get("id").asText();
+    }
+
+    /**
+     * Method that pays an order
+     * @param email of the owner
+     * @param orderId order to pay
+     */
+    public void pay(String email, String orderId) {
+        HttpRequest.Builder request = HttpRequest.newBuilder(uri("/orders/" + orderId + "/process"))
+                .header("Idempotency-Key", UUID.randomUUID().toString());
+        String body = encode(Map.of("creditCard", "4970100000000000"));
+        send("PUT /orders/{id}/process", email, request
+                .header("Content-Type", "application/x-www-form-urlencoded")
+                .PUT(HttpRequest.BodyPublishers.ofString(body)));
+    }
+
+    /**
+     * Method that sends a GET
+     * @param endpoint name in the stats
+     * @param email of the user, null for a guest
+     * @param path relative to the base URL, with the query
+     * @return the response, null if it failed
+     */
+    public HttpResponse<String> get(String endpoint, String email, String path) {
+        return send(endpoint, email, HttpRequest.newBuilder(uri(path)).GET());
+    }
+
+    private HttpResponse<String> send(String endpoint, String email, HttpRequest.Builder request) {
+        request.timeout(Duration.ofSeconds(30));
+        long start = System.nanoTime();
+        try {
+            HttpResponse<String> response = client.send(authorize(request, email, false), HttpResponse.BodyHandlers.ofString());
+            if (response.statusCode() == 401 && email != null)
+                response = client.send(authorize(request, email, true), HttpResponse.BodyHandlers.ofString());
+            stats.record(endpoint, System.nanoTime() - start, response.statusCode());
+            return response;
+        } catch (IOException e) {
+            stats.record(endpoint, System.nanoTime() - start, Stats.FAILED);
+            return null;
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            return null;
+        }
+    }
+
+    private HttpRequest authorize(HttpRequest.Builder request, String email, boolean renew) throws IOException, InterruptedException {
+        if (email == null)
+            return request.build();
+        if (renew)
+            tokens.remove(email);
+        String token = tokens.get(email);
+        if (token == null) {
+            token = authenticate(email);
+            tokens.put(email, token);
+        }
+        return request.setHeader("Authorization", token).build();
+    }
+
+    private String authenticate(String email) throws IOException, InterruptedException {
+        long start = System.nanoTime();
+        HttpResponse<String> response = client.send(form(HttpRequest.newBuilder(uri("/authentication")),
+                Map.of("email", email, "password", passwords.get(email))).build(), HttpResponse.BodyHandlers.ofString());
+        stats.record("POST /authentication", System.nanoTime() - start, response.statusCode());
+        return response.headers().firstValue("Authorization")
+                .orElseThrow(() -> new IOException("Authentication refused for " + email));
+    }
+
+    private URI uri(String path) {
+        return URI.create(baseUrl + path);
+    }
+
+    private static HttpRequest.Builder form(HttpRequest.Builder request, Map<String, String> fields) {
+        return request.header("Content-Type", "application/x-www-form-urlencoded")
+                .POST(HttpRequest.BodyPublishers.ofString(encode(fields)));
+    }
+
+    private static String encode(Map<String, String> fields) {
+        return fields.entrySet().stream()
+                .map(e -> e.getKey() + "=" + URLEncoder.encode(e.getValue(), StandardCharsets.UTF_8))
+                .collect(Collectors.joining("&"));
+    }
+
+    private static JsonNode json(HttpResponse<String> response) {
+        if (response == null || response.statusCode() != 200)
+            return null;
+        try {
+            return MAPPER.readTree(response.body());
+        } catch (IOException e) {
+            return null;
+        }
+    }
+}
@@ -0,0 +1,69 @@
+package loadtest;
+
+import java.io.File;
+import java.io.IOException;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.time.Duration;
+import java.util.concurrent.TimeoutException;
+
+/**
+ * WildFly bootable jar (profile embedded) in which the WAR is deployed, with the in-memory H2 ExampleDS
+ */
+public class EmbeddedServer implements AutoCloseable {
+
+    private final Process process;
+
+    private EmbeddedServer(Process process) {
+        this.process = process;
+    }
+
+    /**
+     * Method that starts the server and waits until the API is ready
+     * @param server the bootable jar
+     * @param war the WAR of the API
+     * @param baseUrl of the API once deployed
+     * @param client to poll the API
+     * @return the started server
+     */
+    public static EmbeddedServer start(File server, File war, String baseUrl, HttpClient client)
+            throws IOException, InterruptedException, TimeoutException {
+        if (!server.isFile() || !war.isFile())
+            throw new IOException("Missing " + (server.isFile() ? war : server) + ", build them first (see README)");
+
+        File log = new File(server.getParentFile(), "server.log");
+        Process process = new ProcessBuilder(
+                new File(System.getProperty("java.home"), "bin/java").getPath(),
+                "-jar", server.getPath(), "--deployment=" + war.getPath())
+                .redirectErrorStream(true)
+                .redirectOutput(log)
+                .start();
+        EmbeddedServer embedded = new EmbeddedServer(process);
+
+        System.out.println("Starting " + server.getName() + " with " + war.getName() + ", logs in " + log);
+        HttpRequest probe = HttpRequest.newBuilder(URI.create(baseUrl + "/health/ready"))
+                .timeout(Duration.ofSeconds(5)).build();
+        long deadline = System.nanoTime() + Duration.ofMinutes(3).toNanos();
+        while (System.nanoTime() < deadline) {
+            if (!process.isAlive())
+                throw new IOException("The server stopped, see " + log);
+            try {
+                if (client.send(probe, HttpResponse.BodyHandlers.discarding()).statusCode() == 200)
+                    return embedded;
+            } catch (IOException e) {
+                // not listening yet
+            }
+            Thread.sleep(500);
+        }
+        embedded.close();
+        throw new TimeoutException("The API is not up after 3 minutes, see " + log);
+    }
+
+    @Override
+    public void close() throws InterruptedException {
+        process.destroy();
+        process.waitFor();
+    }
+}
@@ -0,0 +1,194 @@
+package loadtest;
+
+import java.io.File;
+import java.net.http.HttpClient;
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.time.format.DateTimeFormatter;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ThreadLocalRandom;
+
+/**
+ * Load test of the API : seeds accounts and orders, then each virtual user (a virtual thread)
+ * loops over a mix of the calls of the customers and of the admin until the end
+ *
+ * Options (--name=value) :
+ *   base-url  of the API (http://localhost:8080/le-bon-sandwich-api/api)
+ *   server    bootable jar to start first (profile embedded), with the WAR given by war (../target/le-bon-sandwich-api.war)
+ *   accounts  customer accounts to seed (50)
+ *   orders    orders to seed (200)
+ *   users     virtual users (200)
+ *   warmup    seconds of traffic not reported (10)
+ *   duration  seconds of traffic reported (60)
+ */
+public class LoadTest {
+
+    private static final DateTimeFormatter DATE_FORMAT = DateTimeFormatter.ofPattern("dd/MM/yyyy HH:mm");
+    private static final String ADMIN = "loadtest-admin@lebonsandwich.fr";
+    private static final String PASSWORD = "loadtest";
+    private static final String[] SEARCHES = {"pa", "sal", "roq", "jam", "fromag", "cer"};
+
+    private final Api api;
+    private final Stats stats;
+    private final List<String> customers = new ArrayList<>();
+    private final List<String[]> orders = Collections.synchronizedList(new ArrayList<>());
+    private final ConcurrentLinkedQueue<String[]> unpaid = new ConcurrentLinkedQueue<>();
+    private String[] sandwiches;
+
+    public LoadTest(Api api, Stats stats) {
+        this.api = api;
+        this.stats = stats;
+    }
+
+    public static void main(String[] args) throws Exception {
+        Map<String, String> options = options(args);
+        String baseUrl = options.getOrDefault("base-url", "http://localhost:8080/le-bon-sandwich-api/api");
+        int accounts = Integer.parseInt(options.getOrDefault("accounts", "50"));
+        int orders = Integer.parseInt(options.getOrDefault("orders", "200"));
+        int users = Integer.parseInt(options.getOrDefault("users", "200"));
+        Duration warmup = Duration.ofSeconds(Long.parseLong(options.getOrDefault("warmup", "10")));
+        Duration duration = Duration.ofSeconds(Long.parseLong(options.getOrDefault("duration", "60")));
+
+        HttpClient client = HttpClient.newBuilder()
+                .connectTimeout(Duration.ofSeconds(5))
+                .executor(Executors.newVirtualThreadPerTaskExecutor())
+                .build();
+        Stats stats = new Stats();
+        LoadTest loadTest = new LoadTest(new Api(client, baseUrl, stats), stats);
+
+        if (options.containsKey("server")) {
+            File war = new File(options.getOrDefault("war", "../target/le-bon-sandwich-api.war"));
+            try (EmbeddedServer server = EmbeddedServer.start(new File(options.get("server")), war, baseUrl, client)) {
+                loadTest.run(accounts, orders, users, warmup, duration);
+            }
+        } else {
+            loadTest.run(accounts, orders, users, warmup, duration);
+        }
+    }
+
+    /**
+     * Method that seeds the data, runs the warmup then the measured traffic and prints the stats
+     */
+    public void run(int accounts, int orders, int users, Duration warmup, Duration duration) throws InterruptedException {
+        seed(accounts, orders);
+
+        System.out.println("Warmup : " + users + " users for " + warmup.getSeconds() + " s");
+        traffic(users, warmup);
+        stats.reset();
+
+        System.out.println("Run : " + users + " users for " + duration.getSeconds() + " s");
+        traffic(users, duration);
+        stats.print();
+    }
+
+    private void seed(int accounts, int orders) throws InterruptedException {
+        long start = System.nanoTime();
+        sandwiches = api.sandwichIds();
+        if (sandwiches.length == 0)
+            throw new IllegalStateException("No sandwich, is the API up ?");
+
+        if (!api.signup(ADMIN, PASSWORD, true))
+            throw new IllegalStateException("Cannot create the admin account");
+        for (int i = 0; i < accounts; i++)
+            customers.add("loadtest-" + i + "@lebonsandwich.fr");
+
+        try (ExecutorService executor = Executors.newVirtualThreadPerTaskExecutor()) {
+            customers.forEach(email -> executor.submit(() -> api.signup(email, PASSWORD, false)));
+        }
+        try (ExecutorService executor = Executors.newVirtualThreadPerTaskExecutor()) {
+            for (int i = 0; i < orders; i++) {
+                String email = customers.get(i % customers.size());
+                executor.submit(() -> createOrder(email));
+            }
+        }
+        System.out.printf("Seeded %d accounts and %d orders in %d ms%n",
+                customers.size(), this.orders.size(), (System.nanoTime() - start) / 1_000_000);
+        stats.reset();
+    }
+
+    private void traffic(int users, Duration duration) throws InterruptedException {
+        long end = System.nanoTime() + duration.toNanos();
+        try (ExecutorService executor = Executors.newVirtualThreadPerTaskExecutor()) {
+            for (int i = 0; i < users; i++) {
+                String email = customers.get(i % customers.size());
+                executor.submit(() -> {
+                    while (System.nanoTime() < end && !Thread.currentThread().isInterrupted())
+                        step(email);
+                });
+            }
+        }
+    }
+
+    /**
+     * Method that makes one call of the mix :
+     * 40 % browse the catalog, 20 % create an order, 10 % pay one, 20 % poll a status, 5 % order history, 5 % admin
+     * @param email of the virtual user
+     */
+    private void step(String email) {
+        ThreadLocalRandom random = ThreadLocalRandom.current();
+        int dice = random.nextInt(100);
+
+        if (dice < 40) {
+            switch (random.nextInt(3)) {
+                case 0 -> api.get("GET /categories/ingredients", null, "/categories/ingredients");
+                case 1 -> api.get("GET /sandwiches", null, "/sandwiches");
+                default -> api.get("GET /ingredients/search", null, "/ingredients/search?q=" + SEARCHES[random.nextInt(SEARCHES.length)]);
+            }
+        } else if (dice < 60) {
+            createOrder(email);
+        } else if (dice < 70) {
+            String[] order = unpaid.poll();
+            if (order != null)
+                api.pay(order[0], order[1]);
+            else
+                createOrder(email);
+        } else if (dice < 90) {
+            String[] order = randomOrder(random);
+            if (order != null)
+                api.get("GET /orders/{id}/status", order[0], "/orders/" + order[1] + "/status");
+        } else if (dice < 95) {
+            api.get("GET /accounts/me/orders", email, "/accounts/me/orders");
+        } else {
+            switch (random.nextInt(3)) {
+                case 0 -> api.get("GET /admin/dashboard", ADMIN, "/admin/dashboard");
+                case 1 -> api.get("GET /orders/items", ADMIN, "/orders/items?offset=0&limit=20");
+                default -> api.get("GET /accounts", ADMIN, "/accounts?limit=50");
+            }
+        }
+    }
+
+    private void createOrder(String email) {
+        ThreadLocalRandom random = ThreadLocalRandom.current();
+        // Has to be at least 10 minutes later
+        String dateTime = LocalDateTime.now().plusDays(1).plusMinutes(random.nextInt(600)).format(DATE_FORMAT);
+        String id = api.createOrder(email, dateTime, sandwiches[random.nextInt(sandwiches.length)]);
+        if (id != null) {
+            String[] order = {email, id};
+            orders.add(order);
+            unpaid.add(order);
+        }
+    }
+
+    private String[] randomOrder(ThreadLocalRandom random) {
+        synchronized (orders) {
+            return orders.isEmpty() ? null : orders.get(random.nextInt(orders.size()));
+        }
+    }
+
+    private static Map<String, String> options(String[] args) {
+        Map<String, String> options = new HashMap<>();
+        for (String arg : args) {
+            if (!arg.startsWith("--") || !arg.contains("="))
+                throw new IllegalArgumentException("Expected --name=value : " + arg);
+            options.put(arg.substring(2, arg.indexOf('=')), arg.substring(arg.indexOf('=') + 1));
+        }
+        return options;
+    }
+}
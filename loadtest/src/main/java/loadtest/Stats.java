@@ -0,0 +1,97 @@
+package loadtest;
+
+import java.util.Arrays;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Latencies, errors and rejections per endpoint
+ */
+public class Stats {
+
+    // Status recorded for a call that got no response
+    public static final int FAILED = -1;
+
+    private final Map<String, Endpoint> endpoints = new ConcurrentHashMap<>();
+    private volatile long startedAt = System.nanoTime();
+
+    /**
+     * Method that records a call
+     * @param endpoint method and path template, e.g. GET /orders/{id}/status
+     * @param nanos duration of the call
+     * @param status of the response, FAILED if there is none
+     */
+    public void record(String endpoint, long nanos, int status) {
+        endpoints.computeIfAbsent(endpoint, e -> new Endpoint()).record(nanos, status);
+    }
+
+    /**
+     * Method that forgets what was recorded so far (seeding and warmup)
+     */
+    public void reset() {
+        endpoints.clear();
+        startedAt = System.nanoTime();
+    }
+
+    /**
+     * Method that prints count, errors (no response or 5xx), rejected (any other status but 2xx and 304),
+     * throughput and p50/p99 latency of each endpoint
+     */
+    public void print() {
+        double seconds = (System.nanoTime() - startedAt) / 1e9;
+        long total = 0;
+
+        System.out.printf("%-40s %9s %7s %9s %9s %9s %9s%n", "endpoint", "count", "errors", "rejected", "req/s", "p50 ms", "p99 ms");
+        for (Map.Entry<String, Endpoint> entry : new TreeMap<>(endpoints).entrySet()) {
+            long[] latencies = entry.getValue().latencies();
+            Arrays.sort(latencies);
+            total += latencies.length;
+            System.out.printf("%-40s %9d %7d %9d %9.1f %9.2f %9.2f%n",
+                    entry.getKey(),
+                    latencies.length,
+                    entry.getValue().errors(),
+                    entry.getValue().rejected(),
+                    latencies.length / seconds,
+                    percentile(latencies, 0.50) / 1e6,
+                    percentile(latencies, 0.99) / 1e6);
+        }
+        System.out.printf("%-40s %9d %7s %9s %9.1f%n", "total", total, "", "", total / seconds);
+    }
+
+    private static long percentile(long[] sorted, double p) {
+        if (sorted.length == 0)
+            return 0;
+        return sorted[(int) Math.min(sorted.length - 1, Math.ceil(p * sorted.length) - 1)];
+    }
+
+    private static class Endpoint {
+
+        private long[] latencies = new long[1024];
+        private int count;
+        private int errors;
+        private int rejected;
+
+        synchronized void record(long nanos, int status) {
+            if (count == latencies.length)
+                latencies = Arrays.copyOf(latencies, count * 2);
+            latencies[count++] = nanos;
+            if (status == FAILED || status >= 500)
+                errors++;
+            else if (status / 100 != 2 && status != 304)
+                rejected++;
+        }
+
+        synchronized long[] latencies() {
+            return Arrays.copyOf(latencies, count);
+        }
+
+        synchronized int errors() {
+            return errors;
+        }
+
+        synchronized int rejected() {
+            return rejected;
+        }
+    }
+}
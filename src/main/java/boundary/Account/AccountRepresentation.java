@@ -1,5 +1,8 @@
 package boundary.Account;
 
+import boundary.Order.OrderRepresentation;
+import boundary.Order.OrderResource;
+import boundary.Order.OrderSummary;
 import com.wordnik.swagger.annotations.Api;
 import com.wordnik.swagger.annotations.ApiOperation;
 import com.wordnik.swagger.annotations.ApiResponse;
@@ -24,6 +27,14 @@ public class AccountRepresentation {
     @EJB
     AccountResource accountResource;
 
+    @EJB
+    OrderResource orderResource;
+
+    private final static int ACCOUNTS_LIMIT = 50;
+    private final static int ACCOUNTS_LIMIT_MAX = 200;
+    private final static int ORDERS_LIMIT = 20;
+    private final static int ORDERS_LIMIT_MAX = 100;
+
     @POST
     @Secured({AccountRole.CUSTOMER})
     @Path("/cards")
@@ -69,17 +80,60 @@ public class AccountRepresentation {
             return Response.status(Response.Status.NOT_FOUND).build();
     }
 
+    @GET
+    @Path("/me/orders")
+    @Secured({AccountRole.CUSTOMER, AccountRole.ADMIN})
+    @ApiOperation(value = "Get the orders of the account logged in", notes = "Access: Customer and Admin - The newest first, by pages : the X-Pagination-Next header holds the URI of the next page, it's missing on the last one")
+    @ApiResponses(value = {
+        @ApiResponse(code = 200, message = "OK"),
+        @ApiResponse(code = 401, message = "Unauthorized"),
+        @ApiResponse(code = 500, message = "Internal server error")
+    })
+    public Response getMyOrders(@Context SecurityContext securityContext, @Context UriInfo uriInfo,
+                                @QueryParam("after") String after, @QueryParam("limit") int limit) {
+        int max = (limit <= 0) ? ORDERS_LIMIT : Math.min(limit, ORDERS_LIMIT_MAX);
+        List<OrderSummary> orders = orderResource.findSummariesByCustomer(securityContext.getUserPrincipal().getName(), after, max);
+
+        for (OrderSummary order : orders)
+            order.addLink(getUriForSelfShipment(uriInfo, order), "self");
+
+        Response.ResponseBuilder response = Response.ok(new GenericEntity<List<OrderSummary>>(orders){}, MediaType.APPLICATION_JSON)
+                .header("X-Pagination-Limit", max);
+
+        if (orders.size() == max)
+            response.header("X-Pagination-Next", uriInfo.getRequestUriBuilder()
+                    .replaceQueryParam("after", orders.get(max - 1).getId())
+                    .replaceQueryParam("limit", max)
+                    .build()
+                    .toString());
+
+        return response.build();
+    }
+
     @GET
     @Secured({AccountRole.ADMIN})
-    @ApiOperation(value = "Get all the accounts", notes = "Access: Admin only")
+    @ApiOperation(value = "Get the accounts", notes = "Access: Admin only - Ordered by email, by pages : the X-Pagination-Next header holds the URI of the next page, it's missing on the last one - email and name filter on the start of the value")
     @ApiResponses(value = {
         @ApiResponse(code = 200, message = "OK"),
         @ApiResponse(code = 401, message = "Unauthorized"),
         @ApiResponse(code = 500, message = "Internal server error")
     })
-    public Response getAll(){
-        GenericEntity<List<Account>> list = new GenericEntity<List<Account>>(accountResource.findAll()){};
-        return Response.ok(list, MediaType.APPLICATION_JSON).build();
+    public Response getAll(@Context UriInfo uriInfo, @QueryParam("after") String after, @QueryParam("email") String email,
+                           @QueryParam("name") String name, @QueryParam("limit") int limit) {
+        int max = (limit <= 0) ? ACCOUNTS_LIMIT : Math.min(limit, ACCOUNTS_LIMIT_MAX);
+        List<AccountSummary> accounts = accountResource.findSummaries(after, email, name, max);
+
+        Response.ResponseBuilder response = Response.ok(new GenericEntity<List<AccountSummary>>(accounts){}, MediaType.APPLICATION_JSON)
+                .header("X-Pagination-Limit", max);
+
+        if (accounts.size() == max)
+            response.header("X-Pagination-Next", uriInfo.getRequestUriBuilder()
+                    .replaceQueryParam("after", accounts.get(max - 1).getEmail())
+                    .replaceQueryParam("limit", max)
+                    .build()
+                    .toString());
+
+        return response.build();
     }
 
     @POST
@@ -113,4 +167,12 @@ public class AccountRepresentation {
         }
     }
 
+    private String getUriForSelfShipment(UriInfo uriInfo, OrderSummary order) {
+        return uriInfo.getBaseUriBuilder()
+                .path(OrderRepresentation.class)
+                .path(order.getId())
+                .build()
+                .toString();
+    }
+
 }
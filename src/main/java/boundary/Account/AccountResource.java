@@ -8,9 +8,9 @@ import io.jsonwebtoken.Jwts;
 
 import javax.ejb.DuplicateKeyException;
 import javax.ejb.Stateless;
-import javax.persistence.CacheStoreMode;
 import javax.persistence.EntityManager;
 import javax.persistence.PersistenceContext;
+import javax.persistence.TypedQuery;
 import javax.ws.rs.NotAuthorizedException;
 import javax.ws.rs.container.ContainerRequestContext;
 import javax.ws.rs.core.HttpHeaders;
@@ -35,15 +35,40 @@ public class AccountResource {
     }
 
     /**
-     * Method that returns all the accounts
-     * @return List of Account
+     * Method that returns a page of the accounts, ordered by email
+     *
+     * @param after       email of the last account of the previous page, null for the first page
+     * @param emailPrefix start of the email, null for any
+     * @param namePrefix  start of the name, null for any
+     * @param limit       number max of result
+     * @return List of AccountSummary
      */
-    public List<Account> findAll(){
-        return entityManager.createNamedQuery("Account.findAll", Account.class)
-                .setHint("javax.persistence.cache.storeMode", CacheStoreMode.REFRESH)
-                .getResultList();
+    public List<AccountSummary> findSummaries(String after, String emailPrefix, String namePrefix, int limit) {
+        StringBuilder jpql = new StringBuilder("SELECT NEW boundary.Account.AccountSummary(a.email, a.name, a.role, a.vipCard) FROM Account a WHERE 1 = 1");
+
+        if (after != null)
+            jpql.append(" AND a.email > :after");
+        if (emailPrefix != null)
+            jpql.append(" AND a.email LIKE :email ESCAPE '\\'");
+        if (namePrefix != null)
+            jpql.append(" AND a.name LIKE :name ESCAPE '\\'");
+
+        TypedQuery<AccountSummary> query = entityManager.createQuery(jpql.append(" ORDER BY a.email").toString(), AccountSummary.class);
+
+        if (after != null)
+            query.setParameter("after", after);
+        if (emailPrefix != null)
+            query.setParameter("email", prefix(emailPrefix));
+        if (namePrefix != null)
+            query.setParameter("name", prefix(namePrefix));
+
+        return query.setMaxResults(limit).getResultList();
     }
 
+    // A LIKE pattern matching the start of a value, so the index can answer it with a range
+    private static String prefix(String value) {
+        return value.replace("\\", "\\\\").replace("%", "\\%").replace("_", "\\_") + "%";
+    }
 
     /**
      * Method that inserts an account into the database
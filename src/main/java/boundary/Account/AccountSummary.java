@@ -0,0 +1,45 @@
+package boundary.Account;
+
+import entity.AccountRole;
+
+import javax.xml.bind.annotation.XmlRootElement;
+
+/**
+ * What the list of the accounts shows of an account, the password stays in the database
+ */
+@XmlRootElement
+public class AccountSummary {
+
+    private String email, name;
+    private AccountRole role;
+    private double vipCard;
+
+    public AccountSummary() {}
+
+    public AccountSummary(String email, String name, AccountRole role, double vipCard) {
+        this.email = email;
+        this.name = name;
+        this.role = role;
+        this.vipCard = vipCard;
+    }
+
+    /**
+     * - Getter functions -
+     */
+
+    public String getEmail() {
+        return email;
+    }
+
+    public String getName() {
+        return name;
+    }
+
+    public AccountRole getRole() {
+        return role;
+    }
+
+    public double getVipCard() {
+        return vipCard;
+    }
+}
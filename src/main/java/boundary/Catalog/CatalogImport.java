@@ -0,0 +1,348 @@
+package boundary.Catalog;
+
+import com.fasterxml.jackson.core.JsonParseException;
+import com.fasterxml.jackson.core.JsonParser;
+import com.fasterxml.jackson.core.JsonToken;
+import entity.Category;
+import entity.Ingredient;
+import entity.Sandwich;
+
+import java.io.IOException;
+import java.util.*;
+
+/**
+ * One import of a catalog : reads the JSON document row by row and writes the rows in chunks,
+ * each chunk being committed on its own
+ */
+class CatalogImport {
+
+    final static String CATEGORIES = "categories";
+    final static String INGREDIENTS = "ingredients";
+    final static String SANDWICHES = "sandwiches";
+
+    private final static int CHUNK = 500;
+    private final static int ERRORS_MAX = 20;
+
+    private final CatalogResource catalogResource;
+
+    // Name of the category -> category
+    private final Map<String, Category> categories = new HashMap<>();
+    // Names given to several categories, that can't be referred to
+    private final Set<String> ambiguousCategories = new HashSet<>();
+    // ID of the category and name of the ingredient -> ID of the ingredient
+    private final Map<String, String> ingredients = new HashMap<>();
+    // ID of the category and name of the ingredient, to skip the ones already there or pending
+    private final Set<String> ingredientKeys = new HashSet<>();
+    // Name of the ingredient -> IDs of the ingredients of this name, in any category
+    private final Map<String, Set<String>> ingredientsByName = new HashMap<>();
+    private final Set<String> ingredientIds = new HashSet<>();
+
+    private final List<Category> pendingCategories = new ArrayList<>();
+    private final List<Ingredient> pendingIngredients = new ArrayList<>();
+    private final List<Sandwich> pendingSandwiches = new ArrayList<>();
+
+    private final Map<String, Integer> inserted = new LinkedHashMap<>();
+    private final List<String> errors = new ArrayList<>();
+    private int rows = 0;
+    private int skipped = 0;
+    private int rejected = 0;
+    private final long start = System.nanoTime();
+
+    CatalogImport(CatalogResource catalogResource, List<Category> categories, List<Ingredient> ingredients) {
+        this.catalogResource = catalogResource;
+
+        for (Category category : categories)
+            if (this.categories.putIfAbsent(category.getName(), category) != null)
+                ambiguousCategories.add(category.getName());
+
+        for (Ingredient ingredient : ingredients)
+            addKnown(ingredient);
+
+        inserted.put(CATEGORIES, 0);
+        inserted.put(INGREDIENTS, 0);
+        inserted.put(SANDWICHES, 0);
+    }
+
+    /**
+     * Method that reads a catalog : an object with the arrays "categories", "ingredients" and "sandwiches",
+     * in this order since the rows refer to the ones of the previous arrays by their name
+     * A sandwich refers to its ingredients by {category, name} or {id}, or by their name alone if it's unique
+     *
+     * @param parser on the document
+     * @throws IOException if the document can't be read or isn't a catalog
+     */
+    void read(JsonParser parser) throws IOException {
+        if (parser.nextToken() != JsonToken.START_OBJECT)
+            throw new JsonParseException(parser, "A catalog is an object");
+
+        while (parser.nextToken() == JsonToken.FIELD_NAME) {
+            String section = parser.getCurrentName();
+
+            if (parser.nextToken() != JsonToken.START_ARRAY) {
+                parser.skipChildren();
+                continue;
+            }
+
+            while (parser.nextToken() == JsonToken.START_OBJECT) {
+                Map<String, Object> row = readRow(parser);
+                rows++;
+
+                switch (section) {
+                    case CATEGORIES:
+                        addCategory(row);
+                        break;
+                    case INGREDIENTS:
+                        addIngredient(row);
+                        break;
+                    case SANDWICHES:
+                        addSandwich(row);
+                        break;
+                    default:
+                        reject(section + " isn't part of a catalog");
+                }
+            }
+
+            // The next arrays may refer to the rows of this one
+            flush();
+        }
+    }
+
+    /**
+     * Method that returns what the import did so far
+     *
+     * @return Map of the counters
+     */
+    Map<String, Object> report() {
+        long millis = Math.max(1, (System.nanoTime() - start) / 1_000_000);
+
+        Map<String, Object> report = new LinkedHashMap<>(inserted);
+        report.put("skipped", skipped);
+        report.put("rejected", rejected);
+        report.put("errors", errors);
+        report.put("rows", rows);
+        report.put("millis", millis);
+        report.put("rowsPerSecond", rows * 1000L / millis);
+        return report;
+    }
+
+    private void addCategory(Map<String, Object> row) {
+        String name = text(row, "name");
+
+        if (name == null) {
+            reject("A category needs a name");
+            return;
+        }
+
+        if (categories.containsKey(name)) {
+            skipped++;
+            return;
+        }
+
+        Category category = new Category(name);
+        categories.put(name, category);
+        pendingCategories.add(category);
+
+        if (pendingCategories.size() >= CHUNK)
+            flush();
+    }
+
+    private void addIngredient(Map<String, Object> row) {
+        String name = text(row, "name");
+        String categoryName = text(row, "category");
+        Category category = categories.get(categoryName);
+
+        if (name == null || !(row.get("price") instanceof Number)) {
+            reject("An ingredient needs a name and a price");
+            return;
+        }
+
+        if (ambiguousCategories.contains(categoryName)) {
+            reject("Several categories are named " + categoryName + ", for the ingredient " + name);
+            return;
+        }
+
+        if (category == null) {
+            reject("Unknown category " + categoryName + " for the ingredient " + name);
+            return;
+        }
+
+        if (!ingredientKeys.add(key(category.getId(), name))) {
+            skipped++;
+            return;
+        }
+
+        pendingIngredients.add(new Ingredient(category, name, ((Number) row.get("price")).doubleValue(), text(row, "description")));
+
+        if (pendingIngredients.size() >= CHUNK)
+            flush();
+    }
+
+    private void addSandwich(Map<String, Object> row) {
+        String name = text(row, "name");
+        String size = text(row, "size");
+        Object references = row.get(INGREDIENTS);
+
+        if (name == null || !Sandwich.isSizeOk(size) || !(references instanceof List)) {
+            reject("A sandwich needs a name, a size and a list of ingredients");
+            return;
+        }
+
+        List<Ingredient> list = new ArrayList<>();
+        for (Object reference : (List<?>) references) {
+            String id = resolve(reference, name);
+            if (id == null)
+                return;
+
+            Ingredient ingredient = new Ingredient();
+            ingredient.setId(id);
+            list.add(ingredient);
+        }
+
+        String description = text(row, "description");
+        Sandwich sandwich = new Sandwich(size, name, (description == null) ? "UNDEFINED" : description);
+        sandwich.setIngredientsList(list);
+        pendingSandwiches.add(sandwich);
+
+        if (pendingSandwiches.size() >= CHUNK)
+            flush();
+    }
+
+    /**
+     * Helper function that finds the ingredient a sandwich refers to, and rejects the sandwich if there is none
+     * or several of them
+     *
+     * @param reference {category, name}, {id} or the name alone
+     * @param sandwich  name of the sandwich
+     * @return ID of the ingredient or null if the sandwich is rejected
+     */
+    @SuppressWarnings("unchecked")
+    private String resolve(Object reference, String sandwich) {
+        if (reference instanceof Map) {
+            Map<String, Object> fields = (Map<String, Object>) reference;
+            String id = text(fields, "id");
+            String categoryName = text(fields, "category");
+            String name = text(fields, "name");
+
+            if (id != null) {
+                if (ingredientIds.contains(id))
+                    return id;
+                reject("Unknown ingredient " + id + " for the sandwich " + sandwich);
+                return null;
+            }
+
+            Category category = categories.get(categoryName);
+            if (ambiguousCategories.contains(categoryName)) {
+                reject("Several categories are named " + categoryName + ", for the sandwich " + sandwich);
+                return null;
+            }
+
+            String res = (category == null || name == null) ? null : ingredients.get(key(category.getId(), name));
+            if (res == null) {
+                reject("Unknown ingredient " + categoryName + "/" + name + " for the sandwich " + sandwich);
+                return null;
+            }
+            return res;
+        }
+
+        String name = String.valueOf(reference);
+        Set<String> ids = ingredientsByName.getOrDefault(name, Collections.emptySet());
+        if (ids.size() == 1)
+            return ids.iterator().next();
+
+        reject(ids.isEmpty()
+                ? "Unknown ingredient " + name + " for the sandwich " + sandwich
+                : "Several ingredients are named " + name + ", give the category of the one of the sandwich " + sandwich);
+        return null;
+    }
+
+    private void addKnown(Ingredient ingredient) {
+        ingredients.put(key(ingredient.categoryId(), ingredient.getName()), ingredient.getId());
+        ingredientKeys.add(key(ingredient.categoryId(), ingredient.getName()));
+        ingredientsByName.computeIfAbsent(ingredient.getName(), key -> new HashSet<>()).add(ingredient.getId());
+        ingredientIds.add(ingredient.getId());
+    }
+
+    private static String key(String categoryId, String name) {
+        return categoryId + '\u0000' + name;
+    }
+
+    private void flush() {
+        if (!pendingCategories.isEmpty()) {
+            for (Category category : catalogResource.insertCategories(pendingCategories))
+                categories.put(category.getName(), category);
+
+            inserted.merge(CATEGORIES, pendingCategories.size(), Integer::sum);
+            pendingCategories.clear();
+        }
+
+        if (!pendingIngredients.isEmpty()) {
+            for (Ingredient ingredient : catalogResource.insertIngredients(pendingIngredients))
+                addKnown(ingredient);
+
+            inserted.merge(INGREDIENTS, pendingIngredients.size(), Integer::sum);
+            pendingIngredients.clear();
+        }
+
+        if (!pendingSandwiches.isEmpty()) {
+            int count = catalogResource.insertSandwiches(pendingSandwiches);
+            int invalid = pendingSandwiches.size() - count;
+
+            inserted.merge(SANDWICHES, count, Integer::sum);
+            if (invalid > 0) {
+                rejected += invalid;
+                if (errors.size() < ERRORS_MAX)
+                    errors.add(invalid + " sandwiches don't follow the composition rules");
+            }
+
+            pendingSandwiches.clear();
+        }
+    }
+
+    private void reject(String error) {
+        rejected++;
+        if (errors.size() < ERRORS_MAX)
+            errors.add(error);
+    }
+
+    private static String text(Map<String, Object> row, String field) {
+        Object value = row.get(field);
+        return (value == null) ? null : value.toString();
+    }
+
+    // A row is a flat object, the only arrays are lists of names or of references ({category, name} or {id})
+    private static Map<String, Object> readRow(JsonParser parser) throws IOException {
+        Map<String, Object> row = new HashMap<>();
+
+        while (parser.nextToken() == JsonToken.FIELD_NAME) {
+            String field = parser.getCurrentName();
+            JsonToken token = parser.nextToken();
+
+            switch (token) {
+                case VALUE_STRING:
+                    row.put(field, parser.getText());
+                    break;
+                case VALUE_NUMBER_INT:
+                case VALUE_NUMBER_FLOAT:
+                    row.put(field, parser.getDoubleValue());
+                    break;
+                case START_ARRAY:
+                    List<Object> values = new ArrayList<>();
+                    while (parser.nextToken() != JsonToken.END_ARRAY) {
+                        if (parser.getCurrentToken().isScalarValue())
+                            values.add(parser.getText());
+                        else if (parser.getCurrentToken() == JsonToken.START_OBJECT)
+                            values.add(readRow(parser));
+                        else
+                            parser.skipChildren();
+                    }
+                    row.put(field, values);
+                    break;
+                default:
+                    parser.skipChildren();
+            }
+        }
+
+        return row;
+    }
+
+}
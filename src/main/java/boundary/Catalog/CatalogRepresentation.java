@@ -0,0 +1,179 @@
+package boundary.Catalog;
+
+import boundary.Category.CategoryResource;
+import boundary.Ingredient.IngredientResource;
+import boundary.Sandwich.SandwichResource;
+import com.fasterxml.jackson.core.JsonFactory;
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.core.JsonParser;
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.wordnik.swagger.annotations.Api;
+import com.wordnik.swagger.annotations.ApiOperation;
+import com.wordnik.swagger.annotations.ApiResponse;
+import com.wordnik.swagger.annotations.ApiResponses;
+import control.DatabaseSeeder;
+import entity.AccountRole;
+import entity.Category;
+import entity.Ingredient;
+import entity.Sandwich;
+import provider.Secured;
+
+import javax.ejb.EJB;
+import javax.ejb.Stateless;
+import javax.ejb.TransactionAttribute;
+import javax.ejb.TransactionAttributeType;
+import javax.ws.rs.*;
+import javax.ws.rs.core.MediaType;
+import javax.ws.rs.core.Response;
+import javax.ws.rs.core.StreamingOutput;
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.List;
+import java.util.Map;
+
+@Path("/catalog")
+@Stateless
+@Api(value = "/catalog", description = "Bulk import and export of the catalog")
+public class CatalogRepresentation {
+
+    @EJB
+    CatalogResource catalogResource;
+
+    @EJB
+    IngredientResource ingredientResource;
+
+    @EJB
+    CategoryResource categoryResource;
+
+    @EJB
+    SandwichResource sandwichResource;
+
+    private final static JsonFactory JSON = new JsonFactory();
+    private final static int PAGE = 500;
+
+    @POST
+    @Path("/import")
+    @Consumes(MediaType.APPLICATION_JSON)
+    @Produces(MediaType.APPLICATION_JSON)
+    @Secured({AccountRole.ADMIN})
+    @TransactionAttribute(TransactionAttributeType.NOT_SUPPORTED)
+    @ApiOperation(value = "Import a catalog", notes = "Access : Admin only - Same document as the export : {categories: [{name}], ingredients: [{name, category, price, description}], sandwiches: [{name, description, size, ingredients: [{category, name}]}]} - An ingredient of a sandwich can also be given by {id}, or by its name alone if no other ingredient has it - Categories and ingredients already there are skipped, the rows are committed by chunks and the prices of the sandwiches are computed again")
+    @ApiResponses(value = {
+        @ApiResponse(code = 200, message = "OK"),
+        @ApiResponse(code = 400, message = "Bad request"),
+        @ApiResponse(code = 401, message = "Unauthorized"),
+        @ApiResponse(code = 500, message = "Internal server error")
+    })
+    public Response importCatalog(InputStream body) {
+        DatabaseSeeder.feedCatalog(ingredientResource, categoryResource, sandwichResource);
+
+        CatalogImport catalogImport = new CatalogImport(catalogResource, categoryResource.findAll(), ingredientResource.findAll());
+
+        try (JsonParser parser = JSON.createParser(body)) {
+            catalogImport.read(parser);
+        } catch (JsonProcessingException e) {
+            // The chunks already committed stay in the catalog
+            Map<String, Object> report = catalogImport.report();
+            report.put("error", e.getOriginalMessage());
+            return Response.status(Response.Status.BAD_REQUEST).entity(report).build();
+        } catch (IOException e) {
+            return Response.status(Response.Status.BAD_REQUEST).build();
+        }
+
+        return Response.ok(catalogImport.report(), MediaType.APPLICATION_JSON).build();
+    }
+
+    @GET
+    @Path("/export")
+    @Produces(MediaType.APPLICATION_JSON)
+    @Secured({AccountRole.ADMIN})
+    @ApiOperation(value = "Export the catalog", notes = "Access : Admin only - The document is written while the catalog is read, page by page")
+    @ApiResponses(value = {
+        @ApiResponse(code = 200, message = "OK"),
+        @ApiResponse(code = 401, message = "Unauthorized"),
+        @ApiResponse(code = 500, message = "Internal server error")
+    })
+    public Response exportCatalog() {
+        DatabaseSeeder.feedCatalog(ingredientResource, categoryResource, sandwichResource);
+
+        StreamingOutput stream = output -> {
+            try (JsonGenerator generator = JSON.createGenerator(output)) {
+                generator.writeStartObject();
+                writeCategories(generator);
+                writeIngredients(generator);
+                writeSandwiches(generator);
+                generator.writeEndObject();
+            }
+        };
+
+        return Response.ok(stream, MediaType.APPLICATION_JSON)
+                .header("Content-Disposition", "attachment; filename=\"catalog.json\"")
+                .build();
+    }
+
+    private void writeCategories(JsonGenerator generator) throws IOException {
+        generator.writeArrayFieldStart(CatalogImport.CATEGORIES);
+
+        List<Category> page = catalogResource.findCategories(null, PAGE);
+        while (!page.isEmpty()) {
+            for (Category category : page) {
+                generator.writeStartObject();
+                generator.writeStringField("name", category.getName());
+                generator.writeEndObject();
+            }
+
+            page = catalogResource.findCategories(page.get(page.size() - 1).getId(), PAGE);
+        }
+
+        generator.writeEndArray();
+    }
+
+    private void writeIngredients(JsonGenerator generator) throws IOException {
+        generator.writeArrayFieldStart(CatalogImport.INGREDIENTS);
+
+        List<Ingredient> page = catalogResource.findIngredients(null, PAGE);
+        while (!page.isEmpty()) {
+            for (Ingredient ingredient : page) {
+                generator.writeStartObject();
+                generator.writeStringField("name", ingredient.getName());
+                generator.writeStringField("category", ingredient.categoryName());
+                generator.writeNumberField("price", ingredient.getPrice());
+                generator.writeStringField("description", ingredient.getDescription());
+                generator.writeEndObject();
+            }
+
+            page = catalogResource.findIngredients(page.get(page.size() - 1).getId(), PAGE);
+        }
+
+        generator.writeEndArray();
+    }
+
+    private void writeSandwiches(JsonGenerator generator) throws IOException {
+        generator.writeArrayFieldStart(CatalogImport.SANDWICHES);
+
+        List<Sandwich> page = catalogResource.findSandwiches(null, PAGE);
+        while (!page.isEmpty()) {
+            for (Sandwich sandwich : page) {
+                generator.writeStartObject();
+                generator.writeStringField("name", sandwich.getName());
+                generator.writeStringField("description", sandwich.getDescription());
+                generator.writeStringField("size", sandwich.getSize());
+                generator.writeNumberField("price", sandwich.getPrice());
+                generator.writeArrayFieldStart(CatalogImport.INGREDIENTS);
+                for (Ingredient ingredient : sandwich.getIngredientsList()) {
+                    generator.writeStartObject();
+                    generator.writeStringField("category", ingredient.categoryName());
+                    generator.writeStringField("name", ingredient.getName());
+                    generator.writeEndObject();
+                }
+                generator.writeEndArray();
+                generator.writeEndObject();
+            }
+
+            page = catalogResource.findSandwiches(page.get(page.size() - 1).getId(), PAGE);
+        }
+
+        generator.writeEndArray();
+    }
+
+}
@@ -0,0 +1,172 @@
+package boundary.Catalog;
+
+import control.CategoryEvent;
+import control.Ids;
+import control.IngredientEvent;
+import entity.Category;
+import entity.Ingredient;
+import entity.Sandwich;
+
+import javax.ejb.Stateless;
+import javax.ejb.TransactionAttribute;
+import javax.ejb.TransactionAttributeType;
+import javax.enterprise.event.Event;
+import javax.inject.Inject;
+import javax.persistence.EntityManager;
+import javax.persistence.PersistenceContext;
+import java.util.*;
+
+@Stateless
+public class CatalogResource {
+
+    @PersistenceContext
+    EntityManager entityManager;
+
+    @Inject
+    Event<IngredientEvent> ingredientEvents;
+
+    @Inject
+    Event<CategoryEvent> categoryEvents;
+
+    /**
+     * Method that inserts categories, in a transaction of its own
+     *
+     * @param categories to add, their ID is set
+     * @return the categories added
+     */
+    @TransactionAttribute(TransactionAttributeType.REQUIRES_NEW)
+    public List<Category> insertCategories(List<Category> categories) {
+        for (Category category : categories) {
+            category.setId(Ids.next());
+            entityManager.persist(category);
+        }
+
+        entityManager.flush();
+        for (Category category : categories)
+            categoryEvents.fire(new CategoryEvent(CategoryEvent.CREATED, category));
+
+        entityManager.clear();
+        return categories;
+    }
+
+    /**
+     * Method that inserts ingredients, in a transaction of its own
+     * The categories aren't loaded again, the ones given are only referenced
+     *
+     * @param ingredients to add, with a category already in the database
+     * @return the ingredients added
+     */
+    @TransactionAttribute(TransactionAttributeType.REQUIRES_NEW)
+    public List<Ingredient> insertIngredients(List<Ingredient> ingredients) {
+        for (Ingredient ingredient : ingredients) {
+            ingredient.setId(Ids.next());
+            entityManager.persist(ingredient);
+        }
+
+        // Written in batches, the caches hear about them once committed
+        entityManager.flush();
+        for (Ingredient ingredient : ingredients)
+            ingredientEvents.fire(new IngredientEvent(IngredientEvent.CREATED, ingredient));
+
+        entityManager.clear();
+        return ingredients;
+    }
+
+    /**
+     * Method that inserts sandwiches of the catalog, in a transaction of its own
+     * The ingredients are loaded in one query to validate the sandwiches and compute their price
+     *
+     * @param sandwiches to add, their ingredients only need their ID
+     * @return the number of sandwiches added, the invalid ones are skipped
+     */
+    @TransactionAttribute(TransactionAttributeType.REQUIRES_NEW)
+    public int insertSandwiches(List<Sandwich> sandwiches) {
+        Set<String> ids = new HashSet<>();
+        for (Sandwich sandwich : sandwiches)
+            for (Ingredient ingredient : sandwich.getIngredientsList())
+                ids.add(ingredient.getId());
+
+        Map<String, Ingredient> ingredients = new HashMap<>();
+        if (!ids.isEmpty()) {
+            for (Ingredient ingredient : entityManager.createQuery("SELECT i FROM Ingredient i WHERE i.id IN :ids", Ingredient.class)
+                    .setParameter("ids", ids)
+                    .getResultList())
+                ingredients.put(ingredient.getId(), ingredient);
+        }
+
+        int inserted = 0;
+        for (Sandwich sandwich : sandwiches) {
+            int expected = sandwich.getIngredientsList().size();
+            List<Ingredient> list = new ArrayList<>();
+            for (Ingredient ingredient : sandwich.getIngredientsList()) {
+                if (ingredients.containsKey(ingredient.getId()))
+                    list.add(ingredients.get(ingredient.getId()));
+            }
+            sandwich.setIngredientsList(list);
+
+            if (list.size() != expected || !sandwich.validate())
+                continue;
+
+            sandwich.setId(Ids.next());
+            sandwich.calculatePrice();
+            entityManager.persist(sandwich);
+            inserted++;
+        }
+
+        entityManager.flush();
+        entityManager.clear();
+        return inserted;
+    }
+
+    /**
+     * Method that returns a page of the categories, ordered by ID
+     *
+     * @param after ID of the last category of the previous page, null for the first one
+     * @param max   size of the page
+     * @return List of Category
+     */
+    public List<Category> findCategories(String after, int max) {
+        return entityManager.createQuery("SELECT c FROM Category c WHERE c.id > :after ORDER BY c.id", Category.class)
+                .setParameter("after", (after == null) ? "" : after)
+                .setMaxResults(max)
+                .getResultList();
+    }
+
+    /**
+     * Method that returns a page of the ingredients with their category, ordered by ID
+     *
+     * @param after ID of the last ingredient of the previous page, null for the first one
+     * @param max   size of the page
+     * @return List of Ingredient
+     */
+    public List<Ingredient> findIngredients(String after, int max) {
+        return entityManager.createQuery("SELECT i FROM Ingredient i JOIN FETCH i.category WHERE i.id > :after ORDER BY i.id", Ingredient.class)
+                .setParameter("after", (after == null) ? "" : after)
+                .setMaxResults(max)
+                .getResultList();
+    }
+
+    /**
+     * Method that returns a page of the sandwiches of the catalog with their ingredients, ordered by ID
+     *
+     * @param after ID of the last sandwich of the previous page, null for the first one
+     * @param max   size of the page
+     * @return List of Sandwich
+     */
+    public List<Sandwich> findSandwiches(String after, int max) {
+        List<String> ids = entityManager.createQuery("SELECT s.id FROM Sandwich s WHERE s.fingerprint IS NULL AND s.id > :after ORDER BY s.id", String.class)
+                .setParameter("after", (after == null) ? "" : after)
+                .setMaxResults(max)
+                .getResultList();
+
+        if (ids.isEmpty())
+            return Collections.emptyList();
+
+        List<Sandwich> sandwiches = new ArrayList<>(entityManager.createNamedQuery("Sandwich.findByIds", Sandwich.class)
+                .setParameter("ids", ids)
+                .getResultList());
+        sandwiches.sort(Comparator.comparing(Sandwich::getId));
+        return sandwiches;
+    }
+
+}
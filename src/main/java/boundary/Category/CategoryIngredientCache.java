@@ -0,0 +1,197 @@
+package boundary.Category;
+
+import boundary.Ingredient.IngredientRepresentation;
+import boundary.Ingredient.IngredientResource;
+import control.CategoryEvent;
+import control.IngredientEvent;
+import entity.Category;
+import entity.Ingredient;
+
+import javax.annotation.PostConstruct;
+import javax.ejb.ConcurrencyManagement;
+import javax.ejb.ConcurrencyManagementType;
+import javax.ejb.DependsOn;
+import javax.ejb.EJB;
+import javax.ejb.Singleton;
+import javax.ejb.Startup;
+import javax.enterprise.event.Observes;
+import javax.enterprise.event.TransactionPhase;
+import javax.ws.rs.core.UriInfo;
+import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+
+@Singleton
+@Startup
+@DependsOn("SchemaMigration")
+@ConcurrencyManagement(ConcurrencyManagementType.BEAN)
+public class CategoryIngredientCache {
+
+    // Enough for the hosts the API is reached by, the others are answered without being kept
+    private final static int MAX_BASES = 16;
+
+    @EJB
+    CategoryResource categoryResource;
+
+    @EJB
+    IngredientResource ingredientResource;
+
+    private final Map<String, Category> categories = new LinkedHashMap<>();
+    // ID of the category -> ingredients of the category, by ID
+    private final Map<String, Map<String, Ingredient>> ingredients = new HashMap<>();
+    private final Map<String, String> categoryOfIngredient = new HashMap<>();
+
+    // What the endpoints send, with the links, by base URI : built once per host, dropped after a change
+    private final ConcurrentHashMap<String, Snapshot> snapshots = new ConcurrentHashMap<>();
+
+    @PostConstruct
+    public synchronized void load() {
+        for (Category category : categoryResource.findAll())
+            categories.put(category.getId(), copy(category));
+
+        for (Ingredient ingredient : ingredientResource.findAll())
+            add(ingredient);
+    }
+
+    /**
+     * Method that keeps the cache up to date once a change is committed
+     *
+     * @param event of the ingredient
+     */
+    public synchronized void onIngredientEvent(@Observes(during = TransactionPhase.AFTER_SUCCESS) IngredientEvent event) {
+        String categoryId = categoryOfIngredient.remove(event.getIngredient().getId());
+        if (categoryId != null)
+            ingredients.get(categoryId).remove(event.getIngredient().getId());
+
+        if (!event.getType().equals(IngredientEvent.DELETED))
+            add(event.getIngredient());
+
+        snapshots.clear();
+    }
+
+    /**
+     * Method that keeps the categories up to date once a change is committed
+     *
+     * @param event of the category
+     */
+    public synchronized void onCategoryEvent(@Observes(during = TransactionPhase.AFTER_SUCCESS) CategoryEvent event) {
+        Category category = event.getCategory();
+
+        if (event.getType().equals(CategoryEvent.DELETED)) {
+            categories.remove(category.getId());
+        } else {
+            Category copy = copy(category);
+            categories.put(copy.getId(), copy);
+
+            // The ingredients point to the category they were copied with
+            Map<String, Ingredient> map = ingredients.get(copy.getId());
+            if (map != null)
+                for (Ingredient ingredient : map.values())
+                    ingredient.setCategory(copy);
+        }
+
+        snapshots.clear();
+    }
+
+    /**
+     * Method that returns the ingredients of a category
+     *
+     * @param categoryId ID of the category
+     * @param uriInfo    to build the links
+     * @return List of Ingredient, empty if the category doesn't exist
+     */
+    public List<Ingredient> findByCategory(String categoryId, UriInfo uriInfo) {
+        List<Ingredient> list = snapshot(uriInfo).byCategory.get(categoryId);
+        return (list == null) ? Collections.<Ingredient>emptyList() : list;
+    }
+
+    /**
+     * Method that returns all the categories with their ingredients
+     *
+     * @param uriInfo to build the links
+     * @return List of Map : category and ingredients
+     */
+    public List<Map<String, Object>> findAll(UriInfo uriInfo) {
+        return snapshot(uriInfo).all;
+    }
+
+    private Snapshot snapshot(UriInfo uriInfo) {
+        String base = uriInfo.getBaseUri().toString();
+        Snapshot current = snapshots.get(base);
+
+        if (current != null)
+            return current;
+
+        // Built and kept under the lock of the changes, so that a snapshot never outlives the state it was built from
+        synchronized (this) {
+            current = snapshots.get(base);
+            if (current == null) {
+                current = new Snapshot(uriInfo);
+                if (snapshots.size() < MAX_BASES)
+                    snapshots.put(base, current);
+            }
+            return current;
+        }
+    }
+
+    private void add(Ingredient ingredient) {
+        if (ingredient.getCategory() == null)
+            return;
+
+        // Copies : the entities given belong to the persistence context of their transaction
+        Category category = categories.get(ingredient.getCategory().getId());
+        if (category == null) {
+            category = copy(ingredient.getCategory());
+            categories.put(category.getId(), category);
+        }
+
+        Ingredient copy = new Ingredient(category, ingredient.getName(), ingredient.getPrice(), ingredient.getDescription());
+        copy.setId(ingredient.getId());
+
+        ingredients.computeIfAbsent(category.getId(), key -> new LinkedHashMap<>()).put(copy.getId(), copy);
+        categoryOfIngredient.put(copy.getId(), category.getId());
+    }
+
+    private static Category copy(Category category) {
+        Category copy = new Category(category.getName());
+        copy.setId(category.getId());
+        return copy;
+    }
+
+    private class Snapshot {
+
+        private final Map<String, List<Ingredient>> byCategory = new HashMap<>();
+        private final List<Map<String, Object>> all = new ArrayList<>();
+
+        private Snapshot(UriInfo uriInfo) {
+            for (Category category : categories.values()) {
+                Map<String, Ingredient> map = ingredients.get(category.getId());
+                if (map == null || map.isEmpty())
+                    continue;
+
+                List<Ingredient> list = new ArrayList<>();
+                for (Ingredient ingredient : map.values()) {
+                    Ingredient linked = new Ingredient(category, ingredient.getName(), ingredient.getPrice(), ingredient.getDescription());
+                    linked.setId(ingredient.getId());
+                    linked.addLink(getUriForSelfIngredient(uriInfo, linked), "self");
+                    list.add(linked);
+                }
+
+                list = Collections.unmodifiableList(list);
+                byCategory.put(category.getId(), list);
+
+                Map<String, Object> entry = new LinkedHashMap<>();
+                entry.put("category", category);
+                entry.put("ingredients", list);
+                all.add(Collections.unmodifiableMap(entry));
+            }
+        }
+    }
+
+    private static String getUriForSelfIngredient(UriInfo uriInfo, Ingredient ingredient) {
+        return uriInfo.getBaseUriBuilder()
+                .path(IngredientRepresentation.class)
+                .path(ingredient.getId())
+                .build()
+                .toString();
+    }
+}
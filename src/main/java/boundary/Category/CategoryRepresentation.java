@@ -1,6 +1,5 @@
 package boundary.Category;
 
-import boundary.Ingredient.IngredientRepresentation;
 import boundary.Ingredient.IngredientResource;
 import boundary.Sandwich.SandwichResource;
 import com.wordnik.swagger.annotations.Api;
@@ -10,13 +9,15 @@ import com.wordnik.swagger.annotations.ApiResponses;
 import control.DatabaseSeeder;
 import entity.Category;
 import entity.Ingredient;
+import provider.Filter.ConditionalFilter;
+import provider.SmileProvider;
 
 import javax.ejb.EJB;
 import javax.ejb.Stateless;
 import javax.ws.rs.*;
 import javax.ws.rs.core.*;
-import java.util.ArrayList;
 import java.util.List;
+import java.util.Map;
 
 @Path("/categories")
 
@@ -34,6 +35,9 @@ public class CategoryRepresentation {
     @EJB
     SandwichResource sandwichResource;
 
+    @EJB
+    CategoryIngredientCache categoryIngredientCache;
+
     @GET
     @ApiOperation(value = "Get all the categories", notes = "Access : Guest, Customer and Admin")
     @ApiResponses(value = {
@@ -47,15 +51,25 @@ public class CategoryRepresentation {
 
     @GET
     @Path("/{id}")
-    @ApiOperation(value = "Get a category by its id", notes = "Access : Guest, Customer and Admin")
+    @ApiOperation(value = "Get a category by its id", notes = "Access : Guest, Customer and Admin - ETag, 304 if If-None-Match matches")
     @ApiResponses(value = {
         @ApiResponse(code = 200, message = "OK"),
+        @ApiResponse(code = 304, message = "Not Modified"),
         @ApiResponse(code = 404, message = "Not Found"),
         @ApiResponse(code = 500, message = "Internal server error")})
-    public Response getCategory(@PathParam("id") String id) {
+    public Response getCategory(@Context Request request, @Context UriInfo uriInfo, @PathParam("id") String id) {
+        Object[] versions = categoryResource.findVersions(id);
+        if (versions == null)
+            return Response.status(Response.Status.NOT_FOUND).build();
+
+        EntityTag tag = ConditionalFilter.tag(uriInfo, versions);
+        Response.ResponseBuilder notModified = request.evaluatePreconditions(tag);
+        if (notModified != null)
+            return notModified.build();
+
         Category category = categoryResource.findById(id);
         if (category != null)
-            return Response.ok(category, MediaType.APPLICATION_JSON).build();
+            return Response.ok(category, MediaType.APPLICATION_JSON).tag(tag).build();
         else
             return Response.status(Response.Status.NOT_FOUND).build();
     }
@@ -91,29 +105,24 @@ public class CategoryRepresentation {
         if (categoryId == null)
             return Response.status(Response.Status.NOT_FOUND).build();
 
-        Category cat = categoryResource.findById(categoryId);
-
-        if (cat == null)
-            return Response.status(Response.Status.NOT_FOUND).build();
-
-        List<Ingredient> ingredients = ingredientResource.findByCategory(cat);
+        List<Ingredient> ingredients = categoryIngredientCache.findByCategory(categoryId, uriInfo);
         if(ingredients.isEmpty())
             return Response.status(Response.Status.NOT_FOUND).build();
 
-        for (Ingredient ingredient : ingredients) {
-           ingredient.getLinks().clear();
-           ingredient.addLink(getUriForSelfIngredient(uriInfo, ingredient), "self");
-        }
-
         GenericEntity<List<Ingredient>> list = new GenericEntity<List<Ingredient>>(ingredients){};
         return Response.ok(list, MediaType.APPLICATION_JSON).build();
     }
 
-    private String getUriForSelfIngredient(UriInfo uriInfo, Ingredient ingredient) {
-        return uriInfo.getBaseUriBuilder()
-                .path(IngredientRepresentation.class)
-                .path(ingredient.getId())
-                .build()
-                .toString();
+    @GET
+    @Path("/ingredients")
+    @Produces({MediaType.APPLICATION_JSON, SmileProvider.APPLICATION_SMILE_QS})
+    @ApiOperation(value = "Get all the categories with their ingredients", notes = "Access : Guest, Customer and Admin - Everything the sandwich builder needs in one call")
+    @ApiResponses(value = {
+        @ApiResponse(code = 200, message = "OK"),
+        @ApiResponse(code = 500, message = "Internal server error")})
+    public Response getCategoriesWithIngredients(@Context UriInfo uriInfo) {
+        DatabaseSeeder.feedCatalog(ingredientResource,categoryResource,sandwichResource);
+        GenericEntity<List<Map<String, Object>>> list = new GenericEntity<List<Map<String, Object>>>(categoryIngredientCache.findAll(uriInfo)){};
+        return Response.ok(list).build();
     }
 }
@@ -1,13 +1,16 @@
 package boundary.Category;
 
+import control.CategoryEvent;
+import control.Ids;
 import entity.Category;
 
 import javax.ejb.Stateless;
+import javax.enterprise.event.Event;
+import javax.inject.Inject;
 import javax.persistence.CacheStoreMode;
 import javax.persistence.EntityManager;
 import javax.persistence.PersistenceContext;
 import java.util.List;
-import java.util.UUID;
 
 @Stateless
 public class CategoryResource {
@@ -15,6 +18,21 @@ public class CategoryResource {
     @PersistenceContext
     EntityManager entityManager;
 
+    @Inject
+    Event<CategoryEvent> categoryEvents;
+
+    /**
+     * Method that returns the version of a category, without loading it
+     * @param id ID of the category
+     * @return {version} or null if the category doesn't exist
+     */
+    public Object[] findVersions(String id) {
+        List<Long> res = entityManager.createNamedQuery("Category.findVersion", Long.class)
+                .setParameter("id", id)
+                .getResultList();
+        return res.isEmpty() ? null : new Object[]{res.get(0)};
+    }
+
     /**
      * Method that returns a category for an id given
      * @param id ID of the category
@@ -52,8 +70,10 @@ public class CategoryResource {
      * @return The newly created category
      */
     public Category insert(Category category) {
-        category.setId(UUID.randomUUID().toString());
-        return this.entityManager.merge(category);
+        category.setId(Ids.next());
+        Category res = this.entityManager.merge(category);
+        categoryEvents.fire(new CategoryEvent(CategoryEvent.CREATED, res));
+        return res;
     }
 
 }
@@ -0,0 +1,82 @@
+package boundary.Health;
+
+import com.wordnik.swagger.annotations.Api;
+import com.wordnik.swagger.annotations.ApiOperation;
+import com.wordnik.swagger.annotations.ApiResponse;
+import com.wordnik.swagger.annotations.ApiResponses;
+import control.HealthChecks;
+import control.Warmup;
+
+import javax.ejb.EJB;
+import javax.ejb.Stateless;
+import javax.ejb.TransactionAttribute;
+import javax.ejb.TransactionAttributeType;
+import javax.ws.rs.GET;
+import javax.ws.rs.Path;
+import javax.ws.rs.Produces;
+import javax.ws.rs.core.CacheControl;
+import javax.ws.rs.core.MediaType;
+import javax.ws.rs.core.Response;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+@Path("/health")
+@Produces(MediaType.APPLICATION_JSON)
+@Stateless
+@TransactionAttribute(TransactionAttributeType.NOT_SUPPORTED)
+@Api(value = "/health", description = "Probes of the load balancer")
+public class HealthRepresentation {
+
+    @EJB
+    HealthChecks healthChecks;
+
+    @EJB
+    Warmup warmup;
+
+    @GET
+    @Path("/live")
+    @ApiOperation(value = "Tell if the application answers", notes = "Access : Guest, Customer and Admin - Checks nothing else")
+    @ApiResponses(value = {
+        @ApiResponse(code = 200, message = "OK")})
+    public Response live() {
+        Map<String, Object> map = new LinkedHashMap<>();
+        map.put("status", HealthChecks.UP);
+        return build(map, true);
+    }
+
+    @GET
+    @Path("/ready")
+    @ApiOperation(value = "Tell if the application can take traffic", notes = "Access : Guest, Customer and Admin - Checks the database (cached and time-bounded), the folder of the receipts and the warmup")
+    @ApiResponses(value = {
+        @ApiResponse(code = 200, message = "OK"),
+        @ApiResponse(code = 503, message = "Service Unavailable (a check is down or the warmup is running)")})
+    public Response ready() {
+        Map<String, Object> checks = new LinkedHashMap<>();
+        checks.put("database", healthChecks.database());
+        checks.put("receipts", healthChecks.receipts());
+
+        Map<String, Object> warmupCheck = new LinkedHashMap<>();
+        warmupCheck.put("status", warmup.isReady() ? HealthChecks.UP : HealthChecks.DOWN);
+        warmupCheck.put("steps", warmup.getSteps());
+        checks.put("warmup", warmupCheck);
+
+        boolean up = true;
+        for (Object check : checks.values())
+            up &= HealthChecks.UP.equals(((Map) check).get("status"));
+
+        Map<String, Object> map = new LinkedHashMap<>();
+        map.put("status", up ? HealthChecks.UP : HealthChecks.DOWN);
+        map.put("checks", checks);
+        return build(map, up);
+    }
+
+    private Response build(Map<String, Object> map, boolean up) {
+        CacheControl cacheControl = new CacheControl();
+        cacheControl.setNoStore(true);
+
+        return Response.status(up ? Response.Status.OK : Response.Status.SERVICE_UNAVAILABLE)
+                .entity(map)
+                .cacheControl(cacheControl)
+                .build();
+    }
+}
@@ -2,6 +2,7 @@ package boundary.Ingredient;
 
 import boundary.Category.CategoryRepresentation;
 import boundary.Category.CategoryResource;
+import boundary.Sandwich.RepricingJob;
 import boundary.Sandwich.SandwichResource;
 import com.wordnik.swagger.annotations.Api;
 import com.wordnik.swagger.annotations.ApiOperation;
@@ -11,13 +12,16 @@ import control.DatabaseSeeder;
 import entity.AccountRole;
 import entity.Category;
 import entity.Ingredient;
+import provider.Filter.ConditionalFilter;
 import provider.Secured;
+import provider.SmileProvider;
 
 import javax.ejb.EJB;
 import javax.ejb.Stateless;
 import javax.ws.rs.*;
 import javax.ws.rs.core.*;
 import java.util.List;
+import java.util.Map;
 
 
 
@@ -35,8 +39,18 @@ public class IngredientRepresentation {
 
     @EJB
     SandwichResource sandwichResource;
-    
+
+    @EJB
+    RepricingJob repricingJob;
+
+    @EJB
+    IngredientSearchIndex ingredientSearchIndex;
+
+    private final static int SEARCH_LIMIT = 10;
+    private final static int SEARCH_LIMIT_MAX = 50;
+
     @GET
+    @Produces({MediaType.APPLICATION_JSON, SmileProvider.APPLICATION_SMILE_QS})
     @ApiOperation(value = "Get all ingredients", notes = "Access : Guest, Customer and Admin")
     @ApiResponses(value = {
         @ApiResponse(code = 200, message = "OK"),
@@ -52,27 +66,67 @@ public class IngredientRepresentation {
         });
 
         GenericEntity<List<Ingredient>> list = new GenericEntity<List<Ingredient>>(ingredients){};
-        return Response.ok(list, MediaType.APPLICATION_JSON).build();
+        return Response.ok(list).build();
     }
 
     @GET
     @Path("/{ingredientId}")
-    @ApiOperation(value = "Get an ingredient by its id", notes = "Access : Guest, Customer and Admin")
+    @ApiOperation(value = "Get an ingredient by its id", notes = "Access : Guest, Customer and Admin - ETag, 304 if If-None-Match matches")
     @ApiResponses(value = {
         @ApiResponse(code = 200, message = "OK"),
+        @ApiResponse(code = 304, message = "Not Modified"),
         @ApiResponse(code = 404, message = "Not Found"),
         @ApiResponse(code = 500, message = "Internal server error")
     })
-    public Response getIngredient(@PathParam("ingredientId") String ingredientId) {
+    public Response getIngredient(@Context Request request, @Context UriInfo uriInfo, @PathParam("ingredientId") String ingredientId) {
         DatabaseSeeder.feedCatalog(ingredientResource, categoryResource, sandwichResource);
 
+        Object[] versions = ingredientResource.findVersions(ingredientId);
+        if (versions == null)
+            return Response.status(Response.Status.NOT_FOUND).build();
+
+        EntityTag tag = ConditionalFilter.tag(uriInfo, versions);
+        Response.ResponseBuilder notModified = request.evaluatePreconditions(tag);
+        if (notModified != null)
+            return notModified.build();
+
         Ingredient ingredient = ingredientResource.findById(ingredientId);
         if (ingredient != null)
-            return Response.ok(ingredient, MediaType.APPLICATION_JSON).build();
+            return Response.ok(ingredient, MediaType.APPLICATION_JSON).tag(tag).build();
         else
             return Response.status(Response.Status.NOT_FOUND).build();
     }
 
+    @GET
+    @Path("/search")
+    @ApiOperation(value = "Autocomplete the ingredients", notes = "Access : Guest, Customer and Admin - Matches the start of the name or of the category, ignoring case and accents, and tolerates typos")
+    @ApiResponses(value = {
+        @ApiResponse(code = 200, message = "OK"),
+        @ApiResponse(code = 500, message = "Internal server error")
+    })
+    public Response search(@QueryParam("q") String query, @QueryParam("limit") int limit) {
+        if (query == null)
+            query = "";
+
+        int max = (limit <= 0) ? SEARCH_LIMIT : Math.min(limit, SEARCH_LIMIT_MAX);
+        GenericEntity<List<IngredientSuggestion>> list = new GenericEntity<List<IngredientSuggestion>>(ingredientSearchIndex.search(query, max)){};
+        return Response.ok(list, MediaType.APPLICATION_JSON).build();
+    }
+
+    @GET
+    @Path("/repricing")
+    @Secured({AccountRole.ADMIN})
+    @ApiOperation(value = "Get the progress of the last repricing jobs", notes = "Access : Admin only - A job updates the price of the sandwiches of the catalog after the edition of an ingredient")
+    @ApiResponses(value = {
+        @ApiResponse(code = 200, message = "OK"),
+        @ApiResponse(code = 401, message = "Unauthorized"),
+        @ApiResponse(code = 500, message = "Internal server error")
+    })
+    public Response getRepricingJobs() {
+        GenericEntity<List<Map<String, Object>>> list = new GenericEntity<List<Map<String, Object>>>(repricingJob.getJobs()){};
+        return Response.ok(list, MediaType.APPLICATION_JSON).build();
+    }
+
     @GET
     @Path("/name/{ingredientName}")
     @ApiOperation(value = "Get ingredients by their name", notes = "Access : Guest, Customer and Admin - Can return one or many ingredients")
@@ -95,7 +149,7 @@ public class IngredientRepresentation {
     }
 
 
-    @ApiOperation(value = "Edit an ingredient", notes = "Access : Admin only - Have to fill one field at least")
+    @ApiOperation(value = "Edit an ingredient", notes = "Access : Admin only - Have to fill one field at least - The sandwiches of the catalog are repriced in background")
     @ApiResponses(value = {
         @ApiResponse(code = 200, message = "OK"),
         @ApiResponse(code = 304, message = "Not Modified"),
@@ -1,14 +1,17 @@
 package boundary.Ingredient;
 
 import boundary.Category.CategoryResource;
+import control.Ids;
+import control.IngredientEvent;
 import entity.Category;
 import entity.Ingredient;
 
 import javax.ejb.EJB;
 import javax.ejb.Stateless;
+import javax.enterprise.event.Event;
+import javax.inject.Inject;
 import javax.persistence.*;
 import java.util.List;
-import java.util.UUID;
 
 @Stateless
 public class IngredientResource {
@@ -19,9 +22,24 @@ public class IngredientResource {
     @EJB
     CategoryResource categoryResource;
 
+    @Inject
+    Event<IngredientEvent> ingredientEvents;
+
     // To feed the database
     boolean done = false;
 
+    /**
+     * Method that returns the versions of an ingredient and of its category, without loading them
+     * @param id ID of the ingredient
+     * @return {version, version of the category} or null if the ingredient doesn't exist
+     */
+    public Object[] findVersions(String id) {
+        List<Object[]> res = entityManager.createNamedQuery("Ingredient.findVersions", Object[].class)
+                .setParameter("id", id)
+                .getResultList();
+        return res.isEmpty() ? null : res.get(0);
+    }
+
     /**
      * Method that returns an ingredient for an id given
      * @param id ID of the ingredient
@@ -66,10 +84,10 @@ public class IngredientResource {
      * @return the ingredient added or null if the Category doesn't exist
      */
     public Ingredient insert(Ingredient ingredient) {
-        ingredient.setId(UUID.randomUUID().toString());
+        ingredient.setId(Ids.next());
 
         if (categoryResource.findById(ingredient.getCategory().getId()) != null)
-            return entityManager.merge(ingredient);
+            return publish(IngredientEvent.CREATED, entityManager.merge(ingredient));
 
         return null;
     }
@@ -80,7 +98,7 @@ public class IngredientResource {
      * @return the new ingredient
      */
     public Ingredient update(Ingredient ingredient) {
-        return entityManager.merge(ingredient);
+        return publish(IngredientEvent.UPDATED, entityManager.merge(ingredient));
     }
 
     /**
@@ -93,10 +111,23 @@ public class IngredientResource {
 
         if (ingredient != null) {
             entityManager.remove(ingredient);
+            publish(IngredientEvent.DELETED, ingredient);
             return true;
         }
 
         return false;
     }
 
+    /**
+     * Method that notifies the observers of a change, they choose the transaction phase they want it
+     *
+     * @param type       of the change
+     * @param ingredient the ingredient concerned
+     * @return the ingredient
+     */
+    private Ingredient publish(String type, Ingredient ingredient) {
+        ingredientEvents.fire(new IngredientEvent(type, ingredient));
+        return ingredient;
+    }
+
 }
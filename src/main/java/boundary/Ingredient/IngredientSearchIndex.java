@@ -0,0 +1,258 @@
+package boundary.Ingredient;
+
+import control.CategoryEvent;
+import control.IngredientEvent;
+import entity.Ingredient;
+
+import javax.annotation.PostConstruct;
+import javax.ejb.DependsOn;
+import javax.ejb.EJB;
+import javax.ejb.Lock;
+import javax.ejb.LockType;
+import javax.ejb.Singleton;
+import javax.ejb.Startup;
+import javax.enterprise.event.Observes;
+import javax.enterprise.event.TransactionPhase;
+import java.text.Normalizer;
+import java.util.*;
+import java.util.regex.Pattern;
+
+@Singleton
+@Startup
+@DependsOn("SchemaMigration")
+@Lock(LockType.READ)
+public class IngredientSearchIndex {
+
+    private final static Pattern MARKS = Pattern.compile("\\p{M}+");
+    private final static Pattern SEPARATORS = Pattern.compile("[^\\p{Alnum}]+");
+
+    // Scores of a match, the lower the better
+    private final static int NAME_PREFIX = 0;
+    private final static int CATEGORY_PREFIX = 1;
+    private final static int FUZZY = 2;
+
+    @EJB
+    IngredientResource ingredientResource;
+
+    private final Map<String, IngredientSuggestion> ingredients = new HashMap<>();
+    // Normalized token -> IDs of the ingredients, sorted to answer the prefixes with a range
+    private final TreeMap<String, Set<String>> nameTokens = new TreeMap<>();
+    // The categories are indexed apart, by ID : a category renamed is found and shown with its new name
+    private final TreeMap<String, Set<String>> categoryTokens = new TreeMap<>();
+    private final Map<String, String> categoryNames = new HashMap<>();
+    private final Map<String, Set<String>> ingredientsOfCategory = new HashMap<>();
+
+    @PostConstruct
+    @Lock(LockType.WRITE)
+    public void load() {
+        for (Ingredient ingredient : ingredientResource.findAll())
+            add(ingredient);
+    }
+
+    /**
+     * Method that keeps the index up to date once a change is committed
+     *
+     * @param event of the ingredient
+     */
+    @Lock(LockType.WRITE)
+    public void onIngredientEvent(@Observes(during = TransactionPhase.AFTER_SUCCESS) IngredientEvent event) {
+        remove(event.getIngredient().getId());
+
+        if (!event.getType().equals(IngredientEvent.DELETED))
+            add(event.getIngredient());
+    }
+
+    /**
+     * Method that keeps the names of the categories up to date once a change is committed
+     *
+     * @param event of the category
+     */
+    @Lock(LockType.WRITE)
+    public void onCategoryEvent(@Observes(during = TransactionPhase.AFTER_SUCCESS) CategoryEvent event) {
+        String id = event.getCategory().getId();
+
+        if (event.getType().equals(CategoryEvent.DELETED))
+            nameCategory(id, null);
+        else
+            nameCategory(id, event.getCategory().getName());
+    }
+
+    /**
+     * Method that returns the ingredients whose name or category starts like the query,
+     * case and accents ignored, then the ones that are one or two typos away
+     *
+     * @param query the text typed
+     * @param limit number max of result
+     * @return List of IngredientSuggestion
+     */
+    public List<IngredientSuggestion> search(String query, int limit) {
+        String normalized = normalize(query).trim();
+        Map<String, Integer> scores = new HashMap<>();
+
+        if (normalized.isEmpty())
+            return new ArrayList<>();
+
+        collectPrefix(nameTokens, normalized, NAME_PREFIX, scores);
+        for (String categoryId : prefixed(categoryTokens, normalized))
+            for (String id : ingredientsOfCategory.getOrDefault(categoryId, Collections.emptySet()))
+                scores.merge(id, CATEGORY_PREFIX, Math::min);
+
+        if (scores.size() < limit && normalized.length() >= 3) {
+            int maxEdits = (normalized.length() < 6) ? 1 : 2;
+            for (Map.Entry<String, Set<String>> token : nameTokens.entrySet()) {
+                String prefix = token.getKey().substring(0, Math.min(token.getKey().length(), normalized.length()));
+                int distance = distance(normalized, prefix, maxEdits);
+                if (distance <= maxEdits)
+                    for (String id : token.getValue())
+                        scores.merge(id, FUZZY + distance, Math::min);
+            }
+        }
+
+        List<IngredientSuggestion> res = new ArrayList<>();
+        scores.entrySet().stream()
+                .sorted(Comparator.<Map.Entry<String, Integer>>comparingInt(Map.Entry::getValue)
+                        .thenComparing(entry -> ingredients.get(entry.getKey()).getName()))
+                .limit(limit)
+                .forEach(entry -> {
+                    IngredientSuggestion suggestion = ingredients.get(entry.getKey());
+                    res.add(suggestion.withCategoryName(categoryNames.get(suggestion.getCategoryId())));
+                });
+
+        return res;
+    }
+
+    private void add(Ingredient ingredient) {
+        IngredientSuggestion suggestion = new IngredientSuggestion(ingredient);
+        ingredients.put(suggestion.getId(), suggestion);
+
+        for (String token : tokens(suggestion.getName()))
+            nameTokens.computeIfAbsent(token, key -> new HashSet<>()).add(suggestion.getId());
+
+        if (suggestion.getCategoryId() != null) {
+            ingredientsOfCategory.computeIfAbsent(suggestion.getCategoryId(), key -> new HashSet<>()).add(suggestion.getId());
+            nameCategory(suggestion.getCategoryId(), suggestion.getCategoryName());
+        }
+    }
+
+    private void remove(String id) {
+        IngredientSuggestion suggestion = ingredients.remove(id);
+
+        if (suggestion == null)
+            return;
+
+        for (String token : tokens(suggestion.getName()))
+            removeToken(nameTokens, token, id);
+
+        Set<String> ids = ingredientsOfCategory.get(suggestion.getCategoryId());
+        if (ids != null && ids.remove(id) && ids.isEmpty())
+            ingredientsOfCategory.remove(suggestion.getCategoryId());
+    }
+
+    /**
+     * Helper function that indexes the name of a category, instead of the previous one
+     *
+     * @param id   ID of the category
+     * @param name of the category, null once it's deleted
+     */
+    private void nameCategory(String id, String name) {
+        String previous = (name == null) ? categoryNames.remove(id) : categoryNames.put(id, name);
+
+        if (Objects.equals(previous, name))
+            return;
+
+        for (String token : tokens(previous))
+            removeToken(categoryTokens, token, id);
+
+        for (String token : tokens(name))
+            categoryTokens.computeIfAbsent(token, key -> new HashSet<>()).add(id);
+    }
+
+    private static void removeToken(TreeMap<String, Set<String>> index, String token, String id) {
+        Set<String> ids = index.get(token);
+        if (ids != null && ids.remove(id) && ids.isEmpty())
+            index.remove(token);
+    }
+
+    private static void collectPrefix(TreeMap<String, Set<String>> index, String prefix, int score, Map<String, Integer> scores) {
+        for (String id : prefixed(index, prefix))
+            scores.merge(id, score, Math::min);
+    }
+
+    private static Set<String> prefixed(TreeMap<String, Set<String>> index, String prefix) {
+        Set<String> res = new HashSet<>();
+        for (Set<String> ids : index.subMap(prefix, true, prefix + Character.MAX_VALUE, false).values())
+            res.addAll(ids);
+
+        return res;
+    }
+
+    /**
+     * Helper function that returns the words of a text, and the whole text to match the queries of several words
+     *
+     * @param text to split
+     * @return Set of tokens
+     */
+    private static Set<String> tokens(String text) {
+        Set<String> tokens = new HashSet<>();
+
+        if (text == null)
+            return tokens;
+
+        String normalized = normalize(text);
+        tokens.add(normalized.trim());
+        for (String word : SEPARATORS.split(normalized))
+            if (!word.isEmpty())
+                tokens.add(word);
+
+        return tokens;
+    }
+
+    /**
+     * Helper function that removes the case and the accents : "Crème" becomes "creme"
+     *
+     * @param text to normalize
+     * @return String
+     */
+    static String normalize(String text) {
+        return MARKS.matcher(Normalizer.normalize(text, Normalizer.Form.NFD)).replaceAll("").toLowerCase(Locale.ROOT);
+    }
+
+    /**
+     * Helper function that computes the Levenshtein distance, stopped as soon as it exceeds the max
+     *
+     * @param a   first word
+     * @param b   second word
+     * @param max number max of edits
+     * @return the distance, or max + 1 if it's bigger than max
+     */
+    static int distance(String a, String b, int max) {
+        if (Math.abs(a.length() - b.length()) > max)
+            return max + 1;
+
+        int[] previous = new int[b.length() + 1];
+        int[] current = new int[b.length() + 1];
+
+        for (int j = 0; j <= b.length(); j++)
+            previous[j] = j;
+
+        for (int i = 1; i <= a.length(); i++) {
+            current[0] = i;
+            int best = current[0];
+
+            for (int j = 1; j <= b.length(); j++) {
+                int cost = (a.charAt(i - 1) == b.charAt(j - 1)) ? 0 : 1;
+                current[j] = Math.min(Math.min(current[j - 1] + 1, previous[j] + 1), previous[j - 1] + cost);
+                best = Math.min(best, current[j]);
+            }
+
+            if (best > max)
+                return max + 1;
+
+            int[] swap = previous;
+            previous = current;
+            current = swap;
+        }
+
+        return previous[b.length()];
+    }
+}
@@ -0,0 +1,68 @@
+package boundary.Ingredient;
+
+import entity.Ingredient;
+
+import javax.xml.bind.annotation.XmlRootElement;
+
+/**
+ * What the search index keeps of an ingredient
+ */
+@XmlRootElement
+public class IngredientSuggestion {
+
+    private String id, name, categoryId, categoryName;
+    private double price;
+
+    public IngredientSuggestion() {}
+
+    public IngredientSuggestion(Ingredient ingredient) {
+        this.id = ingredient.getId();
+        this.name = ingredient.getName();
+        this.price = ingredient.getPrice();
+
+        if (ingredient.getCategory() != null) {
+            this.categoryId = ingredient.categoryId();
+            this.categoryName = ingredient.categoryName();
+        }
+    }
+
+    /**
+     * Method that returns the suggestion with the current name of its category
+     *
+     * @param categoryName name of the category, as the index knows it
+     * @return IngredientSuggestion
+     */
+    IngredientSuggestion withCategoryName(String categoryName) {
+        IngredientSuggestion res = new IngredientSuggestion();
+        res.id = id;
+        res.name = name;
+        res.price = price;
+        res.categoryId = categoryId;
+        res.categoryName = (categoryName == null) ? this.categoryName : categoryName;
+        return res;
+    }
+
+    /**
+     * - Getter functions -
+     */
+
+    public String getId() {
+        return id;
+    }
+
+    public String getName() {
+        return name;
+    }
+
+    public String getCategoryId() {
+        return categoryId;
+    }
+
+    public String getCategoryName() {
+        return categoryName;
+    }
+
+    public double getPrice() {
+        return price;
+    }
+}
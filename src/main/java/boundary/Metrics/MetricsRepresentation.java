@@ -0,0 +1,48 @@
+package boundary.Metrics;
+
+import com.wordnik.swagger.annotations.Api;
+import com.wordnik.swagger.annotations.ApiOperation;
+import com.wordnik.swagger.annotations.ApiResponse;
+import com.wordnik.swagger.annotations.ApiResponses;
+import control.QueryMetrics;
+import control.RequestMetrics;
+import entity.AccountRole;
+import provider.Secured;
+
+import javax.ejb.Stateless;
+import javax.ejb.TransactionAttribute;
+import javax.ejb.TransactionAttributeType;
+import javax.inject.Inject;
+import javax.ws.rs.GET;
+import javax.ws.rs.Path;
+import javax.ws.rs.Produces;
+import javax.ws.rs.core.Response;
+
+@Path("/metrics")
+@Stateless
+@TransactionAttribute(TransactionAttributeType.NOT_SUPPORTED)
+@Api(value = "/metrics", description = "Metrics of the endpoints")
+public class MetricsRepresentation {
+
+    private final static String PROMETHEUS = "text/plain; version=0.0.4; charset=utf-8";
+
+    @Inject
+    RequestMetrics requestMetrics;
+
+    @Inject
+    QueryMetrics queryMetrics;
+
+    @GET
+    @Produces(PROMETHEUS)
+    @Secured(AccountRole.ADMIN)
+    @ApiOperation(value = "Get the latency, status, in-flight and statement metrics of each endpoint, and the statistics of each query, in the Prometheus format", notes = "Access : Admin only - Quantiles are those of the requests completed since the previous scrape")
+    @ApiResponses(value = {
+        @ApiResponse(code = 200, message = "OK"),
+        @ApiResponse(code = 401, message = "Unauthorized")})
+    public Response scrape() {
+        StringBuilder out = new StringBuilder(4096);
+        requestMetrics.scrape(out);
+        queryMetrics.scrape(out);
+        return Response.ok(out.toString(), PROMETHEUS).build();
+    }
+}
@@ -0,0 +1,55 @@
+package boundary.Order;
+
+import entity.OrderEvent;
+
+import javax.ejb.Schedule;
+import javax.ejb.Stateless;
+import javax.persistence.EntityManager;
+import javax.persistence.PersistenceContext;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+@Stateless
+public class OrderEventResource {
+
+    private final static long RETENTION = TimeUnit.DAYS.toMillis(1);
+
+    @PersistenceContext
+    EntityManager entityManager;
+
+    /**
+     * Method that returns the events written after the one given, up to the horizon of OrderEventStream
+     *
+     * @param id      ID of the last event known by the client
+     * @param horizon ID of the last event that can be read
+     * @param limit   number max of result
+     * @return List of OrderEvent
+     */
+    public List<OrderEvent> findAfter(long id, long horizon, int limit) {
+        return entityManager.createNamedQuery("OrderEvent.findAfter", OrderEvent.class)
+                .setParameter("id", id)
+                .setParameter("horizon", horizon)
+                .setMaxResults(limit)
+                .getResultList();
+    }
+
+    /**
+     * Method that returns the ID of the last event written
+     *
+     * @return the ID or 0 if there is no event
+     */
+    public long findLastId() {
+        Long id = entityManager.createNamedQuery("OrderEvent.findLastId", Long.class).getSingleResult();
+        return (id == null) ? 0 : id;
+    }
+
+    /**
+     * Method that removes the events older than the retention, clients that late reload the orders anyway
+     */
+    @Schedule(hour = "*", persistent = false)
+    public void purge() {
+        entityManager.createNamedQuery("OrderEvent.deleteBefore")
+                .setParameter("createdAt", System.currentTimeMillis() - RETENTION)
+                .executeUpdate();
+    }
+}
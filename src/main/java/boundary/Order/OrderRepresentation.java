@@ -5,18 +5,38 @@ import boundary.Account.AccountResource;
 import boundary.Ingredient.IngredientRepresentation;
 import boundary.Sandwich.SandwichRepresentation;
 import com.wordnik.swagger.annotations.*;
+import control.Fieldset;
+import control.OrderEventStream;
+import control.OrderStatusNotifier;
 import control.ReceiptGenerator;
 import entity.*;
+import entity.Link;
+import provider.AuthenticatedAccount;
+import provider.Idempotent;
+import provider.Filter.ConditionalFilter;
 import provider.Secured;
+import provider.SmileProvider;
 import javax.ejb.EJB;
 import javax.ejb.Stateless;
+import javax.inject.Inject;
+import javax.json.Json;
 import javax.servlet.ServletContext;
 import javax.ws.rs.*;
+import javax.ws.rs.container.AsyncResponse;
+import javax.ws.rs.container.Suspended;
 import javax.ws.rs.core.*;
 import java.io.File;
 import java.io.FileInputStream;
+import java.io.IOException;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
 import java.util.ArrayList;
+import java.util.Collections;
+import java.util.LinkedHashMap;
 import java.util.List;
+import java.util.Map;
+import java.util.Set;
 
 @Produces(MediaType.APPLICATION_JSON)
 @Stateless
@@ -36,6 +56,27 @@ public class OrderRepresentation {
     @EJB
     AccountResource accountResource;
 
+    @EJB
+    OrderEventResource orderEventResource;
+
+    @Inject
+    OrderStatusNotifier orderStatusNotifier;
+
+    @Inject
+    OrderEventStream orderEventStream;
+
+    @Inject
+    @AuthenticatedAccount
+    Account accountLogged;
+
+    private final static int EVENTS_LIMIT = 100;
+    private final static int EVENTS_RETRY = 2000;
+    private final static long EVENTS_HEARTBEAT = 15000;
+    private final static long EVENTS_DURATION = 600000;
+
+    // higherPrice is only written when listed, it reads the sandwiches
+    public final static Set<String> FIELDS = Fieldset.names("id", "dateTime", "status", "price", "higherPrice");
+    public final static Set<String> EMBEDS = Fieldset.names("customer", "sandwiches", "sandwiches.ingredients", "sandwiches.ingredients.category");
 
     @POST
     @Path("/{id}/receipts")
@@ -87,15 +128,28 @@ public class OrderRepresentation {
 
 
 
-    @ApiOperation(value = "Get all orders", notes = "Access : Admin only")
+    @ApiOperation(value = "Get all orders", notes = "Access : Admin only - fields : id, dateTime, status, price, higherPrice - "
+            + "embed : customer, sandwiches, sandwiches.ingredients, sandwiches.ingredients.category - without both the whole orders")
     @ApiResponses(value = {
 	    @ApiResponse(code = 200, message = "OK"),
+	    @ApiResponse(code = 400, message = "Bad request (unknown field or embed)"),
 	    @ApiResponse(code = 401, message = "Unauthorized"),
     })
     @GET
-    //@Secured({AccountRole.ADMIN})
-    public Response getAll(){
+    @Produces({MediaType.APPLICATION_JSON, SmileProvider.APPLICATION_SMILE_QS})
+    @Secured({AccountRole.ADMIN})
+    public Response getAll(@QueryParam("fields") String fields, @QueryParam("embed") String embed){
+        Fieldset fieldset = Fieldset.of(fields, embed, FIELDS, EMBEDS);
+
+        if (fieldset == null)
+            return Response.status(Response.Status.BAD_REQUEST).build();
+
         List<Shipment> list = orderResource.findAll();
+        fetch(list, fieldset);
+
+        if (!fieldset.isFull())
+            return Response.ok(toMaps(list, fieldset)).build();
+
         list.stream().forEach(order -> {
             List<Sandwich> sandwiches = order.getSandwiches();
             order.addLink(this.getUriForSelfShipment(uriInfo,order),"self");
@@ -107,27 +161,36 @@ public class OrderRepresentation {
                     ingredient.addLink(this.getUriForSelfIngredient(uriInfo,ingredient), "self");
                 }
             }
-            order.setSandwiches(sandwiches);
         });
 
         GenericEntity<List<Shipment>> listGenericEntity = new GenericEntity<List<Shipment>>(list){};
-        return Response.ok(listGenericEntity, MediaType.APPLICATION_JSON).build();
+        return Response.ok(listGenericEntity).build();
     }
 
 
-    @ApiOperation(value = "Get an order by its id", notes = "Access : Owner (customer) and Admin")
+    @ApiOperation(value = "Get an order by its id", notes = "Access : Owner (customer) and Admin - same fields and embed as the list - "
+            + "ETag, 304 if If-None-Match matches")
     @ApiResponses(value = {
 	    @ApiResponse(code = 200, message = "OK"),
+        @ApiResponse(code = 304, message = "Not Modified"),
+        @ApiResponse(code = 400, message = "Bad request (unknown field or embed)"),
         @ApiResponse(code = 401, message = "Unauthorized"),
         @ApiResponse(code = 404, message = "Not Found"),
     })
     @GET
     @Path("/{id}")
     @Secured({AccountRole.ADMIN, AccountRole.CUSTOMER})
-    public Response get(@Context SecurityContext securityContext, @PathParam("id") String id) {
-        Shipment order = orderResource.findById(id);
+    public Response get(@Context SecurityContext securityContext, @Context Request request, @PathParam("id") String id,
+                        @QueryParam("fields") String fields, @QueryParam("embed") String embed) {
+        Fieldset fieldset = Fieldset.of(fields, embed, FIELDS, EMBEDS);
 
-        if (order == null)
+        if (fieldset == null)
+            return Response.status(Response.Status.BAD_REQUEST).build();
+
+        // {version, customer email, ...} : enough to check the access and answer 304 without loading the order
+        Object[] versions = orderResource.findVersions(id);
+
+        if (versions == null)
             return Response.status(Response.Status.NOT_FOUND).build();
 
         Account account = accountResource.findByEmail(securityContext.getUserPrincipal().getName());
@@ -135,9 +198,25 @@ public class OrderRepresentation {
         if (account == null)
             return Response.status(Response.Status.UNAUTHORIZED).build();
 
-        if (!account.getRole().equals(AccountRole.ADMIN) && !account.getEmail().equals(order.getCustomer().getEmail()) )
+        if (!account.getRole().equals(AccountRole.ADMIN) && !account.getEmail().equals(versions[1]) )
             return Response.status(Response.Status.UNAUTHORIZED).build();
 
+        EntityTag tag = ConditionalFilter.tag(uriInfo, versions);
+        Response.ResponseBuilder notModified = request.evaluatePreconditions(tag);
+        if (notModified != null)
+            return notModified.build();
+
+        Shipment order = orderResource.findById(id);
+
+        if (order == null)
+            return Response.status(Response.Status.NOT_FOUND).build();
+
+        // The sandwiches are only loaded if they're written
+        if (!fieldset.isFull()) {
+            fetch(Collections.singletonList(order), fieldset);
+            return Response.ok(toMap(order, fieldset), MediaType.APPLICATION_JSON).tag(tag).build();
+        }
+
         List<Sandwich> sandwiches = order.getSandwiches();
         order.addLink(this.getUriForSelfShipment(uriInfo,order),"self");
         for (Sandwich sandwich : sandwiches) {
@@ -149,9 +228,56 @@ public class OrderRepresentation {
             }
         }
 
-        order.setSandwiches(sandwiches);
+        return Response.ok(order, MediaType.APPLICATION_JSON).tag(tag).build();
+    }
+
+    @GET
+    @Path("/{id}/status")
+    @Secured({AccountRole.ADMIN, AccountRole.CUSTOMER})
+    @ApiOperation(value = "Wait for the status of an order to change (long polling)", notes = "Access : Owner (customer) and Admin - Answers at once if the status differs from the 'known' one, else when it changes or after 30 seconds")
+    @ApiResponses(value = {
+        @ApiResponse(code = 200, message = "OK"),
+        @ApiResponse(code = 401, message = "Unauthorized"),
+        @ApiResponse(code = 404, message = "Not Found"),
+        @ApiResponse(code = 410, message = "Gone (the order has been deleted)"),
+        @ApiResponse(code = 503, message = "Service Unavailable (too many clients waiting, retry later)"),
+    })
+    public void status(@Suspended AsyncResponse asyncResponse, @PathParam("id") String id, @QueryParam("known") Integer known) {
+        OrderStatusNotifier.Channel channel = orderStatusNotifier.find(id);
+
+        if (channel == null) {
+            Shipment order = orderResource.findById(id);
+
+            if (order == null) {
+                asyncResponse.resume(Response.status(Response.Status.NOT_FOUND).build());
+                return;
+            }
+
+            if (!accountLogged.getRole().equals(AccountRole.ADMIN) && !accountLogged.getEmail().equals(order.getCustomer().getEmail())) {
+                asyncResponse.resume(Response.status(Response.Status.UNAUTHORIZED).build());
+                return;
+            }
+
+            channel = orderStatusNotifier.open(order, () -> orderResource.findStatus(id));
+
+            // Too many orders followed : the status is still answered at once, only the wait is refused
+            if (channel == null) {
+                asyncResponse.resume((known == null || known != order.getStatus())
+                        ? OrderStatusNotifier.toResponse(id, order.getStatus())
+                        : OrderStatusNotifier.unavailable());
+                return;
+            }
+        }
+
+        if (!accountLogged.getRole().equals(AccountRole.ADMIN) && !accountLogged.getEmail().equals(channel.getOwner())) {
+            asyncResponse.resume(Response.status(Response.Status.UNAUTHORIZED).build());
+            return;
+        }
 
-        return Response.ok(order, MediaType.APPLICATION_JSON).build();
+        if (known == null || known != channel.getStatus() || channel.isGone())
+            asyncResponse.resume(channel.toResponse());
+        else
+            orderStatusNotifier.subscribe(channel, known, asyncResponse);
     }
 
     @DELETE
@@ -288,13 +414,15 @@ public class OrderRepresentation {
     @PUT
     @Path("/{id}/process")
     @Secured({AccountRole.CUSTOMER})
+    @Idempotent
     @Consumes(MediaType.APPLICATION_FORM_URLENCODED)
-    @ApiOperation(value = "Pay an order", notes = "Access : Owner (customer) only")
+    @ApiOperation(value = "Pay an order", notes = "Access : Owner (customer) only - Retries with the same Idempotency-Key header replay the first response")
     @ApiResponses(value = {
 	    @ApiResponse(code = 200, message = "OK"),
 	    @ApiResponse(code = 401, message = "Unauthorized"),
         @ApiResponse(code = 402, message = "Payment Required"),
 	    @ApiResponse(code = 404, message = "Not Found"),
+	    @ApiResponse(code = 409, message = "Conflict (a request with the same Idempotency-Key is still being processed)"),
     })
     public Response payOrder(@Context SecurityContext securityContext, @PathParam("id") String id, @FormParam("creditCard") String creditCard, @FormParam("loyaltyCard") String vipCard) {
         Shipment shipment = orderResource.findById(id);
@@ -337,12 +465,14 @@ public class OrderRepresentation {
 
     @POST
     @Secured({AccountRole.CUSTOMER})
+    @Idempotent
     @Consumes(MediaType.APPLICATION_FORM_URLENCODED)
-    @ApiOperation(value = "Create an order", notes = "Access : Customer only - Have to fill at least one sandwichId field - Date has to be 10 min later from now and in this format : 'dd/MM/yyy HH:mm'")
+    @ApiOperation(value = "Create an order", notes = "Access : Customer only - Have to fill at least one sandwichId field - Date has to be 10 min later from now and in this format : 'dd/MM/yyy HH:mm' - Retries with the same Idempotency-Key header replay the first response")
     @ApiResponses(value = {
 	    @ApiResponse(code = 200, message = "OK"),
 	    @ApiResponse(code = 401, message = "Unauthorized"),
 	    @ApiResponse(code = 404, message = "Not Found"),
+	    @ApiResponse(code = 409, message = "Conflict (a request with the same Idempotency-Key is still being processed)"),
     })
     @ApiImplicitParams({
             @ApiImplicitParam(name = "dateTime", required = true, dataType = "String : 'dd/MM/yyy HH:mm'"),
@@ -454,7 +584,6 @@ public class OrderRepresentation {
                     ingredient.addLink(this.getUriForSelfIngredient(uriInfo,ingredient), "self");
                 }
             }
-            order.setSandwiches(sandwiches);
         });
 
         GenericEntity<List<Shipment>> listGenericEntity = new GenericEntity<List<Shipment>>(list){};
@@ -490,33 +619,141 @@ public class OrderRepresentation {
                     ingredient.addLink(this.getUriForSelfIngredient(uriInfo,ingredient), "self");
                 }
             }
-            order.setSandwiches(sandwiches);
         });
 
         GenericEntity<List<Shipment>> listGenericEntity = new GenericEntity<List<Shipment>>(list){};
         return Response.ok(listGenericEntity, MediaType.APPLICATION_JSON).build();
     }
 
+    @GET
+    @Secured({AccountRole.ADMIN})
+    @Path("/events")
+    @Produces("text/event-stream")
+    @ApiOperation(value = "Stream of the order changes (Server-Sent Events)", notes = "Access: Admin only - The connection stays open, the events are sent as they are committed with a heartbeat every 15 seconds. Send the id of the last event received in the Last-Event-ID header (EventSource does it when it reconnects), without it the stream starts from now")
+    @ApiResponses(value = {
+            @ApiResponse(code = 200, message = "OK"),
+            @ApiResponse(code = 401, message = "Unauthorized"),
+            @ApiResponse(code = 503, message = "Service Unavailable (too many streams open, retry later)"),
+    })
+    public Response events(@HeaderParam("Last-Event-ID") String lastEventId) {
+        // Every event up to the last one committed is either visible or still in flight, and so below the horizon
+        orderEventStream.seen(orderEventResource.findLastId());
+        long from;
+        try {
+            from = (lastEventId == null) ? orderEventStream.horizon() : Long.parseLong(lastEventId.trim());
+        } catch (NumberFormatException e) {
+            from = orderEventStream.horizon();
+        }
+        long start = from;
+        String base = uriInfo.getBaseUriBuilder().path(OrderRepresentation.class).build().toString();
+
+        if (!orderEventStream.open())
+            return Response.status(Response.Status.SERVICE_UNAVAILABLE)
+                    .header("Retry-After", EVENTS_RETRY / 1000)
+                    .build();
+
+        StreamingOutput stream = output -> {
+            Writer writer = new OutputStreamWriter(output, StandardCharsets.UTF_8);
+            long last = start;
+            long end = System.currentTimeMillis() + EVENTS_DURATION;
+
+            try {
+                // The retry is for the reconnection, once the stream is over or lost
+                writer.write("retry: " + EVENTS_RETRY + "\n");
+                writer.write("id: " + last + "\n\n");
+                writer.flush();
+
+                while (System.currentTimeMillis() < end) {
+                    long changes = orderEventStream.changes();
+                    List<OrderEvent> events = orderEventResource.findAfter(last, orderEventStream.horizon(), EVENTS_LIMIT);
+
+                    for (OrderEvent event : events) {
+                        writeEvent(writer, event, base);
+                        last = event.getId();
+                    }
+
+                    if (events.size() == EVENTS_LIMIT)
+                        continue;
+
+                    // A comment, to keep the proxies from closing the connection and to find out a client that left
+                    if (events.isEmpty())
+                        writer.write(":\n\n");
+                    writer.flush();
+                    orderEventStream.await(changes, EVENTS_HEARTBEAT);
+                }
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            } finally {
+                orderEventStream.close();
+            }
+        };
+
+        return Response.ok(stream, "text/event-stream")
+                .header("Cache-Control", "no-cache")
+                .build();
+    }
+
+    /**
+     * Helper function that writes an event of the stream
+     *
+     * @param writer of the response
+     * @param event  of the order
+     * @param base   URI of the orders
+     */
+    private static void writeEvent(Writer writer, OrderEvent event, String base) throws IOException {
+        writer.write("id: " + event.getId() + "\n");
+        writer.write("event: " + event.getType() + "\n");
+        writer.write("data: " + Json.createObjectBuilder()
+                .add("orderId", event.getOrderId())
+                .add("status", event.getStatus())
+                .add("price", event.getPrice())
+                .add("dateTime", event.getDateTime() == null ? "" : event.getDateTime())
+                .add("_links", Json.createArrayBuilder().add(Json.createObjectBuilder()
+                        .add("rel", "self")
+                        .add("href", base + "/" + event.getOrderId())))
+                .build()
+                .toString());
+        writer.write("\n\n");
+    }
+
     @GET
     @Secured({AccountRole.ADMIN})
     @Path("/items")
+    @Produces({MediaType.APPLICATION_JSON, SmileProvider.APPLICATION_SMILE_QS})
     @ApiImplicitParams({
             @ApiImplicitParam(name = "offset", required = true, dataType = "int", paramType = "query"),
             @ApiImplicitParam(name = "limit", required = true, dataType = "int", paramType = "query"),
+            @ApiImplicitParam(name = "fields", required = false, dataType = "string", paramType = "query"),
+            @ApiImplicitParam(name = "embed", required = false, dataType = "string", paramType = "query"),
     })
-    @ApiOperation(value = "Show orders with pagination and limit params", notes = "Access: Admin only - Offset starts at 0 ! Limit : 0 is unlimited")
+    @ApiOperation(value = "Show orders with pagination and limit params", notes = "Access: Admin only - Offset starts at 0 ! Limit : 0 is unlimited - same fields and embed as the list")
     @ApiResponses(value = {
             @ApiResponse(code = 200, message = "OK"),
+            @ApiResponse(code = 400, message = "Bad request (unknown field or embed)"),
             @ApiResponse(code = 401, message = "Unauthorized"),
             @ApiResponse(code = 404, message = "Not Found"),
             @ApiResponse(code = 500, message = "Internal server error")
     })
-    public Response pagination(@QueryParam("offset") int offset, @QueryParam("limit") int limit) {
+    public Response pagination(@QueryParam("offset") int offset, @QueryParam("limit") int limit,
+                               @QueryParam("fields") String fields, @QueryParam("embed") String embed) {
 
         if (offset < 0 || limit < 0)
             return Response.status(Response.Status.NOT_FOUND).build();
 
+        Fieldset fieldset = Fieldset.of(fields, embed, FIELDS, EMBEDS);
+
+        if (fieldset == null)
+            return Response.status(Response.Status.BAD_REQUEST).build();
+
         List<Shipment> list = orderResource.offsetLimit(offset,limit);
+        fetch(list, fieldset);
+
+        if (!fieldset.isFull())
+            return Response.ok(toMaps(list, fieldset))
+                    .header("X-Pagination-Count", orderResource.countAll())
+                    .header("X-Pagination-Page", offset)
+                    .header("X-Pagination-Limit", limit)
+                    .build();
 
         list.stream().forEach(order -> {
             List<Sandwich> sandwiches = order.getSandwiches();
@@ -529,11 +766,10 @@ public class OrderRepresentation {
                     ingredient.addLink(this.getUriForSelfIngredient(uriInfo,ingredient), "self");
                 }
             }
-            order.setSandwiches(sandwiches);
         });
 
         GenericEntity<List<Shipment>> listGenericEntity = new GenericEntity<List<Shipment>>(list){};
-        return Response.ok(listGenericEntity, MediaType.APPLICATION_JSON)
+        return Response.ok(listGenericEntity)
                 .header("X-Pagination-Count", orderResource.countAll())
                 .header("X-Pagination-Page", offset)
                 .header("X-Pagination-Limit", limit)
@@ -541,10 +777,73 @@ public class OrderRepresentation {
     }
 
 
+    /**
+     * Method that loads in a few statements the associations that will be written
+     *
+     * @param orders   managed by the current transaction
+     * @param fieldset what is asked
+     */
+    private void fetch(List<Shipment> orders, Fieldset fieldset) {
+        if (fieldset.embeds("sandwiches") || fieldset.lists("higherPrice"))
+            orderResource.fetchSandwiches(orders, fieldset.embeds("sandwiches.ingredients"));
+    }
+
+    private GenericEntity<List<Map<String, Object>>> toMaps(List<Shipment> orders, Fieldset fieldset) {
+        List<Map<String, Object>> res = new ArrayList<>();
+        for (Shipment order : orders)
+            res.add(toMap(order, fieldset));
+
+        return new GenericEntity<List<Map<String, Object>>>(res) {};
+    }
+
+    /**
+     * Method that writes the properties and associations asked of an order, the others aren't read
+     *
+     * @param order    to write
+     * @param fieldset what is asked
+     * @return Map of the properties
+     */
+    private Map<String, Object> toMap(Shipment order, Fieldset fieldset) {
+        Map<String, Object> res = new LinkedHashMap<>();
+        if (fieldset.has("id"))
+            res.put("id", order.getId());
+        if (fieldset.has("dateTime"))
+            res.put("dateTime", order.getDateTime());
+        if (fieldset.has("status"))
+            res.put("status", order.getStatus());
+        if (fieldset.has("price"))
+            res.put("price", order.getPrice());
+        if (fieldset.lists("higherPrice"))
+            res.put("higherPrice", order.getHigherPrice());
+
+        if (fieldset.embeds("customer") && order.getCustomer() != null) {
+            Map<String, Object> customer = new LinkedHashMap<>();
+            customer.put("email", order.getCustomer().getEmail());
+            customer.put("name", order.getCustomer().getName());
+            customer.put("_links", Collections.singletonList(new Link("self", getUriForSelfAccount(uriInfo, order.getCustomer()))));
+            res.put("customer", customer);
+        }
+
+        if (fieldset.embeds("sandwiches")) {
+            Fieldset embedded = fieldset.embedded("sandwiches");
+            List<Map<String, Object>> sandwiches = new ArrayList<>();
+            for (Sandwich sandwich : order.getSandwiches())
+                sandwiches.add(SandwichRepresentation.toMap(uriInfo, sandwich, embedded));
+            res.put("sandwiches", sandwiches);
+        }
+
+        res.put("_links", Collections.singletonList(new Link("self", getUriForSelfShipment(uriInfo, order))));
+        return res;
+    }
+
     private String getUriForSelfShipment(UriInfo uriInfo, Shipment Commande) {
+        return getUriForSelfShipment(uriInfo, Commande.getId());
+    }
+
+    private String getUriForSelfShipment(UriInfo uriInfo, String id) {
         return uriInfo.getBaseUriBuilder()
                 .path(OrderRepresentation.class)
-                .path(Commande.getId())
+                .path(id)
                 .build()
                 .toString();
     }
@@ -1,18 +1,26 @@
 package boundary.Order;
 
 import boundary.Sandwich.SandwichResource;
+import control.Ids;
+import control.OrderEventStream;
 import entity.Account;
+import entity.OrderEvent;
 import entity.Shipment;
 import entity.Sandwich;
 
 import javax.ejb.EJB;
 import javax.ejb.Stateless;
+import javax.enterprise.event.Event;
+import javax.inject.Inject;
 import javax.persistence.CacheStoreMode;
 import javax.persistence.EntityManager;
 import javax.persistence.PersistenceContext;
+import javax.persistence.TypedQuery;
+import java.util.ArrayList;
 import java.util.Date;
+import java.util.LinkedHashSet;
 import java.util.List;
-import java.util.UUID;
+import java.util.Set;
 
 @Stateless
 public class OrderResource {
@@ -23,6 +31,12 @@ public class OrderResource {
     @EJB
     SandwichResource sandwichResource;
 
+    @Inject
+    Event<OrderEvent> orderEvents;
+
+    @Inject
+    OrderEventStream orderEventStream;
+
     /**
      * Method that returns an order for an id given
      *
@@ -33,6 +47,34 @@ public class OrderResource {
         return entityManager.find(Shipment.class, id);
     }
 
+    /**
+     * Method that reads the status of an order from the database, not from the persistence context
+     *
+     * @param id ID of the order
+     * @return the status or null if the order doesn't exist
+     */
+    public Integer findStatus(String id) {
+        List<Integer> res = entityManager.createNamedQuery("Shipment.findStatus", Integer.class)
+                .setParameter("id", id)
+                .getResultList();
+        return res.isEmpty() ? null : res.get(0);
+    }
+
+    /**
+     * Method that returns what the representation of an order depends on, without loading it :
+     * its version, its customer, and the sums of the versions of its sandwiches, their ingredients and categories
+     *
+     * @param id ID of the order
+     * @return {version, email of the customer, version of the customer, sum of the sandwiches,
+     * sum of the ingredients, sum of the categories} or null if the order doesn't exist
+     */
+    public Object[] findVersions(String id) {
+        List<Object[]> res = entityManager.createNamedQuery("Shipment.findVersions", Object[].class)
+                .setParameter("id", id)
+                .getResultList();
+        return res.isEmpty() ? null : res.get(0);
+    }
+
     /**
      * Method that returns all the orders
      *
@@ -44,6 +86,31 @@ public class OrderResource {
                 .getResultList();
     }
 
+    /**
+     * Method that returns a page of the orders of a customer, the newest first
+     * Sorted by (createdAt, id) : the IDs alone don't follow the time (UUIDs), the ID breaks the ties
+     * The page starts right after the last order of the previous one, an unknown order gives an empty page
+     *
+     * @param email of the customer
+     * @param after ID of the last order of the previous page, null for the first page
+     * @param limit number max of result
+     * @return List of OrderSummary
+     */
+    public List<OrderSummary> findSummariesByCustomer(String email, String after, int limit) {
+        String select = "SELECT NEW boundary.Order.OrderSummary(s.id, s.dateTime, s.status, s.priceCents, SIZE(s.sandwiches)) ";
+        String order = " ORDER BY s.createdAt DESC, s.id DESC";
+
+        TypedQuery<OrderSummary> query = (after == null)
+                ? entityManager.createQuery(select + "FROM Shipment s WHERE s.customer.email = :email" + order, OrderSummary.class)
+                : entityManager.createQuery(select + "FROM Shipment s, Shipment last WHERE last.id = :after AND s.customer.email = :email "
+                        + "AND (s.createdAt < last.createdAt OR (s.createdAt = last.createdAt AND s.id < last.id))" + order, OrderSummary.class)
+                        .setParameter("after", after);
+
+        return query.setParameter("email", email)
+                .setMaxResults(limit)
+                .getResultList();
+    }
+
     /**
      * Method that returns the orders with pagination and limit method
      *
@@ -59,6 +126,30 @@ public class OrderResource {
                 .getResultList();
     }
 
+    /**
+     * Method that loads the sandwiches of orders in one statement instead of one per order when they're read,
+     * then their ingredients in another one if asked
+     *
+     * @param orders      managed by the current transaction
+     * @param ingredients if the ingredients of the sandwiches are loaded too
+     */
+    public void fetchSandwiches(List<Shipment> orders, boolean ingredients) {
+        if (orders.isEmpty())
+            return;
+
+        entityManager.createNamedQuery("Shipment.fetchSandwiches", Shipment.class)
+                .setParameter("orders", orders)
+                .getResultList();
+
+        // Two bags can't be fetched by the same statement
+        if (ingredients) {
+            Set<Sandwich> sandwiches = new LinkedHashSet<>();
+            for (Shipment order : orders)
+                sandwiches.addAll(order.getSandwiches());
+            sandwichResource.fetchIngredients(new ArrayList<>(sandwiches));
+        }
+    }
+
     /**
      * Method that returns order for a specific status
      *
@@ -113,14 +204,13 @@ public class OrderResource {
             sandwich = sandwichResource.findById(id);
             if (sandwich == null)
                 return null;
-            Sandwich copy = new Sandwich(sandwich);
-            sandwichResource.insert(copy);
-            order.addSandwich(copy);
+            order.addSandwich(sandwichResource.findOrCreateComposition(sandwich));
         }
 
-        order.setId(UUID.randomUUID().toString());
+        order.setId(Ids.next());
+        order.setCreatedAt(System.currentTimeMillis());
 
-        return entityManager.merge(order);
+        return publish(OrderEvent.CREATED, entityManager.merge(order));
     }
 
     /**
@@ -132,7 +222,7 @@ public class OrderResource {
      */
     public Shipment update(Shipment order, int status) {
         if (order.changeState(status))
-            return entityManager.merge(order);
+            return publish(OrderEvent.UPDATED, entityManager.merge(order));
         return null;
     }
 
@@ -143,7 +233,7 @@ public class OrderResource {
      * @return the new order
      */
     public Shipment update(Shipment order) {
-        return entityManager.merge(order);
+        return publish(OrderEvent.UPDATED, entityManager.merge(order));
     }
 
     /**
@@ -160,9 +250,14 @@ public class OrderResource {
         if (sandwich == null || !Sandwich.isSizeOk(size) || order.getStatus() != Shipment.CREATED)
             return null;
 
-        sandwich.setSize(size);
-        sandwichResource.update(sandwich);
-        return entityManager.merge(order);
+        // The composition is shared with other orders : the resized sandwich is another composition
+        Sandwich resized = new Sandwich(sandwich).update(size, sandwich.getName(), sandwich.getDescription());
+
+        if (!order.removeSandwich(sandwichId))
+            return null;
+
+        order.addSandwich(sandwichResource.findOrCreateComposition(resized));
+        return publish(OrderEvent.UPDATED, entityManager.merge(order));
     }
 
     /**
@@ -176,8 +271,8 @@ public class OrderResource {
         Sandwich sandwich = sandwichResource.findById(sandwichId);
         if (sandwich == null)
             return null;
-        order.addSandwich(sandwich);
-        return entityManager.merge(order);
+        order.addSandwich(sandwichResource.findOrCreateComposition(sandwich));
+        return publish(OrderEvent.UPDATED, entityManager.merge(order));
     }
 
     /**
@@ -193,7 +288,7 @@ public class OrderResource {
                 Date date = order.toDate(dateTime);
                 if (date != null) {
                     order.setDateTime(date);
-                    return entityManager.merge(order);
+                    return publish(OrderEvent.UPDATED, entityManager.merge(order));
                 }
             }
         }
@@ -228,11 +323,12 @@ public class OrderResource {
 
                 if (sandwich != null) {
                     order.removeSandwich(sandwichId);
-                    sandwichResource.delete(sandwich.getId());
                     entityManager.merge(order);
 
                     if (order.getSandwiches().size() == 0)
                         delete(order);
+                    else
+                        publish(OrderEvent.UPDATED, order);
 
                     return true;
                 }
@@ -251,9 +347,7 @@ public class OrderResource {
     public boolean delete(Shipment order) {
         if (order != null) {
             if (order.getStatus() != Shipment.CREATED) {
-                for (Sandwich sandwich : order.getSandwiches())
-                    sandwichResource.delete(sandwich.getId());
-
+                publish(OrderEvent.DELETED, order);
                 entityManager.remove(order);
                 return true;
             }
@@ -262,4 +356,25 @@ public class OrderResource {
         return false;
     }
 
+    /**
+     * Method that writes an event in the outbox, within the transaction of the change,
+     * and notifies the observers once it's committed
+     *
+     * @param type  of the event
+     * @param order the order concerned
+     * @return the order
+     */
+    private Shipment publish(String type, Shipment order) {
+        OrderEvent event = new OrderEvent(type, order);
+        orderEventStream.begin(event);
+        try {
+            entityManager.persist(event);
+        } catch (RuntimeException e) {
+            orderEventStream.abort(event);
+            throw e;
+        }
+        orderEvents.fire(event);
+        return order;
+    }
+
 }
@@ -0,0 +1,65 @@
+package boundary.Order;
+
+import entity.Link;
+import entity.Price;
+
+import javax.xml.bind.annotation.XmlElement;
+import javax.xml.bind.annotation.XmlRootElement;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * What the order history shows of an order, read without loading the order and its sandwiches
+ */
+@XmlRootElement
+public class OrderSummary {
+
+    private String id, dateTime;
+    private int status, items;
+    private double price;
+
+    @XmlElement(name = "_links")
+    private List<Link> links = new ArrayList<>();
+
+    public OrderSummary() {}
+
+    public OrderSummary(String id, String dateTime, int status, long priceCents, int items) {
+        this.id = id;
+        this.dateTime = dateTime;
+        this.status = status;
+        this.price = Price.toEuros(priceCents);
+        this.items = items;
+    }
+
+    public void addLink(String uri, String rel) {
+        this.links.add(new Link(rel, uri));
+    }
+
+    /**
+     * - Getter functions -
+     */
+
+    public String getId() {
+        return id;
+    }
+
+    public String getDateTime() {
+        return dateTime;
+    }
+
+    public int getStatus() {
+        return status;
+    }
+
+    public double getPrice() {
+        return price;
+    }
+
+    public int getItems() {
+        return items;
+    }
+
+    public List<Link> getLinks() {
+        return links;
+    }
+}
@@ -0,0 +1,158 @@
+package boundary.Sandwich;
+
+import control.IngredientEvent;
+
+import javax.annotation.Resource;
+import javax.ejb.*;
+import javax.enterprise.event.Observes;
+import javax.enterprise.event.TransactionPhase;
+import javax.persistence.OptimisticLockException;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentLinkedDeque;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.logging.Logger;
+
+@Singleton
+@ConcurrencyManagement(ConcurrencyManagementType.BEAN)
+public class RepricingJob {
+
+    private final static Logger LOGGER = Logger.getLogger(RepricingJob.class.getName());
+    private final static int BATCH_SIZE = 100;
+    private final static int HISTORY = 20;
+    private final static int RETRIES = 3;
+
+    @EJB
+    SandwichResource sandwichResource;
+
+    @Resource
+    SessionContext sessionContext;
+
+    private final ConcurrentLinkedDeque<Progress> jobs = new ConcurrentLinkedDeque<>();
+
+    /**
+     * Method that starts the repricing once the change of an ingredient is committed
+     *
+     * @param event of the ingredient
+     */
+    public void onIngredientEvent(@Observes(during = TransactionPhase.AFTER_SUCCESS) IngredientEvent event) {
+        if (event.getType().equals(IngredientEvent.UPDATED))
+            sessionContext.getBusinessObject(RepricingJob.class).reprice(event.getIngredient().getId());
+    }
+
+    /**
+     * Method that computes again the price of the sandwiches of the catalog made with an ingredient,
+     * by batches committed one after the other
+     *
+     * @param ingredientId ID of the ingredient
+     * @return the number of sandwiches whose price has changed
+     */
+    @Asynchronous
+    @TransactionAttribute(TransactionAttributeType.NOT_SUPPORTED)
+    public Future<Integer> reprice(String ingredientId) {
+        Progress progress = new Progress(ingredientId);
+        jobs.addFirst(progress);
+        while (jobs.size() > HISTORY)
+            jobs.pollLast();
+
+        try {
+            List<String> ids = sandwichResource.findTemplateIdsByIngredient(ingredientId);
+            progress.total = ids.size();
+
+            for (int from = 0; from < ids.size(); from += BATCH_SIZE)
+                repriceBatch(progress, ids.subList(from, Math.min(from + BATCH_SIZE, ids.size())));
+
+            progress.finish((progress.failed == 0) ? "DONE" : "DONE_WITH_FAILURES");
+            LOGGER.info("Repriced " + progress.repriced + " sandwiches with the ingredient " + ingredientId + " in " + progress.duration() + " ms"
+                    + ((progress.failed == 0) ? "" : ", " + progress.failed + " left after " + RETRIES + " conflicts"));
+        } catch (RuntimeException e) {
+            progress.finish("FAILED");
+            LOGGER.warning("Repricing of the sandwiches with the ingredient " + ingredientId + " failed : " + e.getMessage());
+        }
+
+        return new AsyncResult<>(progress.repriced);
+    }
+
+    /**
+     * Method that reprices a batch, again when a sandwich has been changed meanwhile : the batch is read anew,
+     * with the change. After RETRIES conflicts its sandwiches are counted as failed and the job goes on
+     *
+     * @param progress of the job
+     * @param ids      IDs of the sandwiches of the batch
+     */
+    private void repriceBatch(Progress progress, List<String> ids) {
+        for (int attempt = 1; ; attempt++) {
+            try {
+                progress.repriced += sandwichResource.reprice(ids);
+                return;
+            } catch (EJBException e) {
+                if (!isConflict(e))
+                    throw e;
+                if (attempt == RETRIES) {
+                    progress.failed += ids.size();
+                    LOGGER.warning("Repricing of " + ids.size() + " sandwiches with the ingredient " + progress.ingredientId + " given up : " + e.getMessage());
+                    return;
+                }
+            }
+        }
+    }
+
+    private static boolean isConflict(Throwable e) {
+        for (Throwable cause = e; cause != null; cause = cause.getCause())
+            if (cause instanceof OptimisticLockException)
+                return true;
+
+        return false;
+    }
+
+    /**
+     * Method that returns the last jobs, the most recent first
+     *
+     * @return List of Map
+     */
+    public List<Map<String, Object>> getJobs() {
+        List<Map<String, Object>> list = new ArrayList<>();
+        for (Progress progress : jobs)
+            list.add(progress.toMap());
+
+        return list;
+    }
+
+    private static class Progress {
+
+        private final String ingredientId;
+        private final long start = System.nanoTime();
+        private volatile long end;
+        private volatile String state = "RUNNING";
+        private volatile int total;
+        private volatile int repriced;
+        private volatile int failed;
+
+        private Progress(String ingredientId) {
+            this.ingredientId = ingredientId;
+        }
+
+        private void finish(String state) {
+            this.end = System.nanoTime();
+            this.state = state;
+        }
+
+        private long duration() {
+            return TimeUnit.NANOSECONDS.toMillis(((end == 0) ? System.nanoTime() : end) - start);
+        }
+
+        private Map<String, Object> toMap() {
+            Map<String, Object> map = new LinkedHashMap<>();
+            map.put("ingredientId", ingredientId);
+            map.put("state", state);
+            map.put("total", total);
+            map.put("repriced", repriced);
+            map.put("failed", failed);
+            map.put("durationMs", duration());
+            return map;
+        }
+    }
+}
@@ -8,11 +8,15 @@ import com.wordnik.swagger.annotations.ApiOperation;
 import com.wordnik.swagger.annotations.ApiResponse;
 import com.wordnik.swagger.annotations.ApiResponses;
 import control.DatabaseSeeder;
+import control.Fieldset;
 import entity.Account;
 import entity.AccountRole;
 import entity.Ingredient;
+import entity.Link;
 import entity.Sandwich;
+import provider.Filter.ConditionalFilter;
 import provider.Secured;
+import provider.SmileProvider;
 
 import javax.ejb.EJB;
 import javax.ejb.Stateless;
@@ -21,7 +25,12 @@ import javax.ws.rs.core.*;
 import java.io.File;
 import java.net.URI;
 import java.net.URL;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.LinkedHashMap;
 import java.util.List;
+import java.util.Map;
+import java.util.Set;
 
 @Path("/sandwiches")
 
@@ -39,56 +48,100 @@ public class SandwichRepresentation {
     @EJB
     IngredientResource ingredientResource;
 
+    public final static Set<String> FIELDS = Fieldset.names("id", "name", "description", "size", "price");
+    public final static Set<String> EMBEDS = Fieldset.names("ingredients", "ingredients.category");
+
     @GET
-    @ApiOperation(value = "Get all the sandwiches", notes = "Access : Guest, Customer and Admin")
+    @Produces({MediaType.APPLICATION_JSON, SmileProvider.APPLICATION_SMILE_QS})
+    @ApiOperation(value = "Get all the sandwiches", notes = "Access : Guest, Customer and Admin - "
+            + "fields : id, name, description, size, price - embed : ingredients, ingredients.category - "
+            + "without both the whole sandwiches")
     @ApiResponses(value = {
 	    @ApiResponse(code = 200, message = "OK"),
+	    @ApiResponse(code = 400, message = "Bad request (unknown field or embed)"),
 	    @ApiResponse(code = 500, message = "Internal server error")
     })
-    public Response getSandwiches(@Context UriInfo uriInfo) {
+    public Response getSandwiches(@Context UriInfo uriInfo, @QueryParam("fields") String fields, @QueryParam("embed") String embed) {
+        Fieldset fieldset = Fieldset.of(fields, embed, FIELDS, EMBEDS);
+
+        if (fieldset == null)
+            return Response.status(Response.Status.BAD_REQUEST).build();
+
         DatabaseSeeder.feedCatalog(ingredientResource, categoryResource, sandwichResource);
         List<Sandwich> list = sandwichResource.findAll();
 
+        if (fieldset.embeds("ingredients"))
+            sandwichResource.fetchIngredients(list);
+
+        if (!fieldset.isFull()) {
+            List<Map<String, Object>> res = new ArrayList<>();
+            for (Sandwich sandwich : list)
+                res.add(toMap(uriInfo, sandwich, fieldset));
+
+            return Response.ok(new GenericEntity<List<Map<String, Object>>>(res) {}).build();
+        }
+
         list.stream().forEach(sandwich -> {
             List<Ingredient> ingredientsList = sandwich.getIngredientsList();
-            sandwich.addLink(this.getUriForSelfSandwich(uriInfo, sandwich), "self");
+            sandwich.addLink(getUriForSelfSandwich(uriInfo, sandwich), "self");
             for (Ingredient ingredient : ingredientsList) {
                 ingredient.getLinks().clear();
-                ingredient.addLink(this.getUriForSelfIngredient(uriInfo, ingredient), "self");
+                ingredient.addLink(getUriForSelfIngredient(uriInfo, ingredient), "self");
             }
-            sandwich.setIngredientsList(ingredientsList);
         });
 
         GenericEntity<List<Sandwich>> listGenericEntity = new GenericEntity<List<Sandwich>>(list) {
         };
 
-        return Response.ok(listGenericEntity, MediaType.APPLICATION_JSON).build();
+        return Response.ok(listGenericEntity).build();
     }
 
     @GET
     @Path("/{id}")
-    @ApiOperation(value = "Get a sandwich by its id", notes = "Access : Guest, Customer and Admin")
+    @ApiOperation(value = "Get a sandwich by its id", notes = "Access : Guest, Customer and Admin - same fields and embed as the list - "
+            + "ETag, 304 if If-None-Match matches")
     @ApiResponses(value = {
 	    @ApiResponse(code = 200, message = "OK"),
+	    @ApiResponse(code = 304, message = "Not Modified"),
+	    @ApiResponse(code = 400, message = "Bad request (unknown field or embed)"),
 	    @ApiResponse(code = 404, message = "Not Found"),
 	    @ApiResponse(code = 500, message = "Internal server error")
     })
-    public Response getSandwich(@Context UriInfo uriInfo, @PathParam("id") String sandwichId) {
+    public Response getSandwich(@Context Request request, @Context UriInfo uriInfo, @PathParam("id") String sandwichId,
+                                @QueryParam("fields") String fields, @QueryParam("embed") String embed) {
+        Fieldset fieldset = Fieldset.of(fields, embed, FIELDS, EMBEDS);
+
+        if (fieldset == null)
+            return Response.status(Response.Status.BAD_REQUEST).build();
+
+        Object[] versions = sandwichResource.findVersions(sandwichId);
+
+        if (versions == null)
+            return Response.status(Response.Status.NOT_FOUND).build();
+
+        // Before loading the sandwich and its ingredients
+        EntityTag tag = ConditionalFilter.tag(uriInfo, versions);
+        Response.ResponseBuilder notModified = request.evaluatePreconditions(tag);
+        if (notModified != null)
+            return notModified.build();
+
         Sandwich sandwich = sandwichResource.findById(sandwichId);
 
         if (sandwich == null)
             return Response.status(Response.Status.NOT_FOUND).build();
 
+        // The ingredients are only loaded if they're written
+        if (!fieldset.isFull())
+            return Response.ok(toMap(uriInfo, sandwich, fieldset), MediaType.APPLICATION_JSON).tag(tag).build();
+
         List<Ingredient> ingredientsList = sandwich.getIngredientsList();
 
         for (Ingredient ingredient : ingredientsList) {
             ingredient.getLinks().clear();
-            ingredient.addLink(this.getUriForSelfIngredient(uriInfo, ingredient), "self");
+            ingredient.addLink(getUriForSelfIngredient(uriInfo, ingredient), "self");
         }
 
-        sandwich.setIngredientsList(ingredientsList);
-
-        return Response.ok(sandwich, MediaType.APPLICATION_JSON).build();
+        return Response.ok(sandwich, MediaType.APPLICATION_JSON).tag(tag).build();
     }
 
     @POST
@@ -144,7 +197,7 @@ public class SandwichRepresentation {
     @PUT
     @Path("/{id}")
     @Consumes(MediaType.APPLICATION_FORM_URLENCODED)
-    @ApiOperation(value = "Edit a sandwich", notes = "Access : Admin only")
+    @ApiOperation(value = "Edit a sandwich", notes = "Access : Admin only - The sandwiches of the orders can't be edited")
     @ApiResponses(value = {
 	@ApiResponse(code = 204, message = "Not content"),
 	@ApiResponse(code = 304, message = "Not Modified"),
@@ -161,7 +214,7 @@ public class SandwichRepresentation {
 
         boolean isFormEmpty = (name == null && description == null && size == null);
 
-        if (sandwich == null || isFormEmpty)
+        if (sandwich == null || sandwich.isComposition() || isFormEmpty)
             return Response.notModified().build();
 
         String n = (name == null) ? sandwich.getName() : name;
@@ -195,7 +248,55 @@ public class SandwichRepresentation {
             return Response.status(Response.Status.NOT_FOUND).build();
     }
 
-    private String getUriForSelfSandwich(UriInfo uriInfo, Sandwich sandwich) {
+    /**
+     * Method that writes the properties and associations asked of a sandwich, the others aren't read
+     * so the lazy ones are never loaded
+     *
+     * @param uriInfo  for the links
+     * @param sandwich to write
+     * @param fieldset what is asked
+     * @return Map of the properties
+     */
+    public static Map<String, Object> toMap(UriInfo uriInfo, Sandwich sandwich, Fieldset fieldset) {
+        Map<String, Object> res = new LinkedHashMap<>();
+        if (fieldset.has("id"))
+            res.put("id", sandwich.getId());
+        if (fieldset.has("name"))
+            res.put("name", sandwich.getName());
+        if (fieldset.has("description"))
+            res.put("description", sandwich.getDescription());
+        if (fieldset.has("size"))
+            res.put("size", sandwich.getSize());
+        if (fieldset.has("price"))
+            res.put("price", sandwich.getPrice());
+
+        if (fieldset.embeds("ingredients")) {
+            List<Map<String, Object>> ingredients = new ArrayList<>();
+            for (Ingredient ingredient : sandwich.getIngredientsList()) {
+                Map<String, Object> map = new LinkedHashMap<>();
+                map.put("id", ingredient.getId());
+                map.put("name", ingredient.getName());
+                map.put("description", ingredient.getDescription());
+                map.put("price", ingredient.getPrice());
+
+                if (fieldset.embeds("ingredients.category") && ingredient.getCategory() != null) {
+                    Map<String, Object> category = new LinkedHashMap<>();
+                    category.put("id", ingredient.categoryId());
+                    category.put("name", ingredient.categoryName());
+                    map.put("category", category);
+                }
+
+                map.put("_links", Collections.singletonList(new Link("self", getUriForSelfIngredient(uriInfo, ingredient))));
+                ingredients.add(map);
+            }
+            res.put("ingredientsList", ingredients);
+        }
+
+        res.put("_links", Collections.singletonList(new Link("self", getUriForSelfSandwich(uriInfo, sandwich))));
+        return res;
+    }
+
+    private static String getUriForSelfSandwich(UriInfo uriInfo, Sandwich sandwich) {
         return uriInfo.getBaseUriBuilder()
                 .path(SandwichRepresentation.class)
                 .path(sandwich.getId())
@@ -210,7 +311,7 @@ public class SandwichRepresentation {
                 .toString();
     }
 
-    private String getUriForSelfIngredient(UriInfo uriInfo, Ingredient ingredient) {
+    private static String getUriForSelfIngredient(UriInfo uriInfo, Ingredient ingredient) {
         return uriInfo.getBaseUriBuilder()
                 .path(IngredientRepresentation.class)
                 .path(ingredient.getId())
@@ -1,14 +1,19 @@
 package boundary.Sandwich;
 
 import boundary.Ingredient.IngredientResource;
+import control.Ids;
 import entity.Ingredient;
 import entity.Sandwich;
 
+import javax.annotation.Resource;
 import javax.ejb.EJB;
+import javax.ejb.EJBException;
+import javax.ejb.SessionContext;
 import javax.ejb.Stateless;
+import javax.ejb.TransactionAttribute;
+import javax.ejb.TransactionAttributeType;
 import javax.persistence.*;
 import java.util.List;
-import java.util.UUID;
 
 @Stateless
 public class SandwichResource {
@@ -19,6 +24,9 @@ public class SandwichResource {
     @EJB
     IngredientResource ingredientResource;
 
+    @Resource
+    SessionContext sessionContext;
+
     /**
      * Method that returns a sandwich for an id given
      *
@@ -29,6 +37,22 @@ public class SandwichResource {
         return entityManager.find(Sandwich.class, id);
     }
 
+    /**
+     * Method that returns what the representation of a sandwich depends on, without loading it :
+     * its version and the sums of the versions of its ingredients and of their categories.
+     * A version only grows and a change of the ingredients list increments the sandwich's, so any change
+     * gives other values
+     *
+     * @param id ID of the sandwich
+     * @return {version, sum of the ingredients, sum of the categories} or null if the sandwich doesn't exist
+     */
+    public Object[] findVersions(String id) {
+        List<Object[]> res = entityManager.createNamedQuery("Sandwich.findVersions", Object[].class)
+                .setParameter("id", id)
+                .getResultList();
+        return res.isEmpty() ? null : res.get(0);
+    }
+
     /**
      * Method that returns all the sandwiches
      *
@@ -40,6 +64,59 @@ public class SandwichResource {
                 .getResultList();
     }
 
+    /**
+     * Method that loads the ingredients of sandwiches, with their category, in one statement
+     * instead of one per sandwich when they're read
+     *
+     * @param sandwiches managed by the current transaction
+     */
+    public void fetchIngredients(List<Sandwich> sandwiches) {
+        if (sandwiches.isEmpty())
+            return;
+
+        entityManager.createNamedQuery("Sandwich.fetchIngredients", Sandwich.class)
+                .setParameter("sandwiches", sandwiches)
+                .getResultList();
+    }
+
+    /**
+     * Method that returns the IDs of the sandwiches of the catalog made with an ingredient
+     *
+     * @param ingredientId ID of the ingredient
+     * @return List of ID
+     */
+    public List<String> findTemplateIdsByIngredient(String ingredientId) {
+        return entityManager.createNamedQuery("Sandwich.findIdsByIngredient", String.class)
+                .setParameter("id", ingredientId)
+                .getResultList();
+    }
+
+    /**
+     * Method that computes again the price of sandwiches, in a transaction of its own
+     * Flushed here, so that a concurrent change of a sandwich comes out as an OptimisticLockException of this call
+     *
+     * @param ids IDs of the sandwiches
+     * @return the number of sandwiches whose price has changed
+     */
+    @TransactionAttribute(TransactionAttributeType.REQUIRES_NEW)
+    public int reprice(List<String> ids) {
+        List<Sandwich> sandwiches = entityManager.createNamedQuery("Sandwich.findByIds", Sandwich.class)
+                .setParameter("ids", ids)
+                .getResultList();
+
+        // Only the sandwiches whose price differs are written back
+        int changed = 0;
+        for (Sandwich sandwich : sandwiches) {
+            long before = sandwich.priceCents();
+            sandwich.calculatePrice();
+            if (sandwich.priceCents() != before)
+                changed++;
+        }
+
+        entityManager.flush();
+        return changed;
+    }
+
     /**
      * Method that inserts a sandwich into the database
      *
@@ -47,8 +124,6 @@ public class SandwichResource {
      * @return the sandwich added or null if the Ingredient doesn't exist
      */
     public Sandwich insert(Sandwich sandwich) {
-        sandwich.setId(UUID.randomUUID().toString());
-
         for (Ingredient ingredient : sandwich.getIngredientsList()) {
             if (ingredientResource.findById(ingredient.getId()) == null)
                 return null;
@@ -58,7 +133,7 @@ public class SandwichResource {
             return null;
 
         sandwich.calculatePrice();
-        sandwich.setId(UUID.randomUUID().toString());
+        sandwich.setId(Ids.next());
         return entityManager.merge(sandwich);
     }
 
@@ -73,9 +148,7 @@ public class SandwichResource {
         Ingredient i;
         int counter = 0;
 
-        if (!size.equals(Sandwich.getSandwichSize0()) && !size.equals(Sandwich.getSandwichSize1()) &&
-                !size.equals(Sandwich.getSandwichSize2()) && !size.equals(Sandwich.getSandwichSize3())
-                )
+        if (!Sandwich.isSizeOk(size))
             return null;
 
 
@@ -93,7 +166,7 @@ public class SandwichResource {
 
         Sandwich sandwich = new Sandwich(size, array);
         if (sandwich.validate()) {
-            sandwich.setId(UUID.randomUUID().toString());
+            sandwich.setId(Ids.next());
             sandwich.calculatePrice();
             return entityManager.merge(sandwich);
         }
@@ -101,6 +174,51 @@ public class SandwichResource {
         return null;
     }
 
+    /**
+     * Method that returns the composition of a sandwich, created the first time it's ordered at its current price
+     * Two first orders of the same composition may both miss it : it's inserted in a transaction of its own,
+     * the one that loses gets a duplicate key and reads the one of the other
+     *
+     * @param sandwich The sandwich ordered
+     * @return the composition shared by all the orders of this sandwich
+     */
+    public Sandwich findOrCreateComposition(Sandwich sandwich) {
+        Sandwich composition = new Sandwich(sandwich);
+        composition.calculatePrice();
+
+        String fingerprint = composition.fingerprint();
+        Sandwich existing = entityManager.find(Sandwich.class, fingerprint);
+
+        if (existing != null)
+            return existing;
+
+        composition.freeze(fingerprint);
+        EJBException failure = null;
+        try {
+            sessionContext.getBusinessObject(SandwichResource.class).insertComposition(composition);
+        } catch (EJBException e) {
+            failure = e;
+        }
+
+        existing = entityManager.find(Sandwich.class, fingerprint);
+        if (existing == null)
+            throw (failure != null) ? failure : new EJBException("Composition " + fingerprint + " not found once inserted");
+
+        return existing;
+    }
+
+    /**
+     * Method that inserts a composition, committed even if the order is rolled back : it's immutable and
+     * any later order of the same sandwich at the same price uses it
+     *
+     * @param composition frozen by findOrCreateComposition
+     */
+    @TransactionAttribute(TransactionAttributeType.REQUIRES_NEW)
+    public void insertComposition(Sandwich composition) {
+        entityManager.persist(composition);
+        entityManager.flush();
+    }
+
     /**
      * Method that updates a sandwich
      *
@@ -120,7 +238,8 @@ public class SandwichResource {
     public boolean delete(String id) {
         Sandwich sandwich = entityManager.find(Sandwich.class, id);
 
-        if (sandwich != null) {
+        // Compositions are shared by the orders and never deleted
+        if (sandwich != null && !sandwich.isComposition()) {
             entityManager.remove(sandwich);
             return true;
         }
@@ -28,8 +28,11 @@ public class ApplicationConfig extends Application {
         resources.add(boundary.Account.AccountRepresentation.class);
         resources.add(boundary.Account.AuthenticationEndpoint.class);
         resources.add(boundary.BackOffice.BackOfficeRepresentation.class);
+        resources.add(boundary.Catalog.CatalogRepresentation.class);
         resources.add(boundary.Category.CategoryRepresentation.class);
+        resources.add(boundary.Health.HealthRepresentation.class);
         resources.add(boundary.Ingredient.IngredientRepresentation.class);
+        resources.add(boundary.Metrics.MetricsRepresentation.class);
         resources.add(boundary.Order.OrderRepresentation.class);
         resources.add(boundary.Sandwich.SandwichRepresentation.class);
     }
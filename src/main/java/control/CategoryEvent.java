@@ -0,0 +1,29 @@
+package control;
+
+import entity.Category;
+
+/**
+ * Fired on each change of a category, by CategoryResource and CatalogResource
+ */
+public class CategoryEvent {
+
+    public final static String CREATED = "CREATED";
+    public final static String UPDATED = "UPDATED";
+    public final static String DELETED = "DELETED";
+
+    private final String type;
+    private final Category category;
+
+    public CategoryEvent(String type, Category category) {
+        this.type = type;
+        this.category = category;
+    }
+
+    public String getType() {
+        return type;
+    }
+
+    public Category getCategory() {
+        return category;
+    }
+}
@@ -0,0 +1,141 @@
+package control;
+
+import entity.Ingredient;
+import entity.SandwichSize;
+
+import java.io.FileInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.nio.charset.StandardCharsets;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Properties;
+
+public class CompositionRules {
+
+    public final static String PROPERTY = "lebonsandwich.composition-rules";
+    private final static String RESOURCE = "/composition-rules.properties";
+    private final static String SIZE_PREFIX = "size.";
+    private final static String SIZE_MAX_SUFFIX = ".max";
+
+    private static volatile CompositionRules defaultRules;
+
+    // Each category has a bit, a sandwich is valid if it sets all the bits of the required mask
+    private final Map<String, Integer> categoryBits = new HashMap<>();
+    private final int[] maxIngredients = new int[SandwichSize.values().length];
+    private long requiredMask;
+
+    /**
+     * Method that compiles the rules
+     *
+     * @param properties 'required' : categories separated by commas,
+     *                   'size.NAME.max' : number max of ingredients if it differs from the SandwichSize one
+     * @return the rules compiled
+     */
+    public static CompositionRules compile(Properties properties) {
+        CompositionRules rules = new CompositionRules();
+
+        for (SandwichSize size : SandwichSize.values())
+            rules.maxIngredients[size.ordinal()] = size.getMaxIngredients();
+
+        for (String category : properties.getProperty("required", "").split(",")) {
+            category = category.trim();
+            if (category.isEmpty() || rules.categoryBits.containsKey(category))
+                continue;
+
+            if (rules.categoryBits.size() == Long.SIZE)
+                throw new IllegalArgumentException("A sandwich can't require more than " + Long.SIZE + " categories");
+
+            int bit = rules.categoryBits.size();
+            rules.categoryBits.put(category, bit);
+            rules.requiredMask |= 1L << bit;
+        }
+
+        for (String key : properties.stringPropertyNames()) {
+            if (key.startsWith(SIZE_PREFIX) && key.endsWith(SIZE_MAX_SUFFIX)) {
+                String name = key.substring(SIZE_PREFIX.length(), key.length() - SIZE_MAX_SUFFIX.length());
+                SandwichSize size = SandwichSize.of(name);
+
+                if (size == null)
+                    throw new IllegalArgumentException("Unknown size : " + name);
+
+                rules.maxIngredients[size.ordinal()] = Integer.parseInt(properties.getProperty(key).trim());
+            }
+        }
+
+        return rules;
+    }
+
+    /**
+     * Method that returns the rules of the application, read once from the file given by the
+     * system property or else from the one packaged
+     *
+     * @return CompositionRules
+     */
+    public static CompositionRules getDefault() {
+        if (defaultRules == null) {
+            synchronized (CompositionRules.class) {
+                if (defaultRules == null)
+                    defaultRules = compile(load());
+            }
+        }
+
+        return defaultRules;
+    }
+
+    /**
+     * Method that validates the composition of a sandwich in a single pass over its ingredients
+     *
+     * @param size        of the sandwich
+     * @param ingredients of the sandwich
+     * @return if it's valid
+     */
+    public boolean validate(SandwichSize size, List<Ingredient> ingredients) {
+        int count = ingredients.size();
+
+        if (size == null || count > maxIngredients[size.ordinal()])
+            return false;
+
+        long mask = 0;
+        for (int i = 0; i < count; i++) {
+            Integer bit = categoryBits.get(ingredients.get(i).categoryName());
+            if (bit != null)
+                mask |= 1L << bit;
+        }
+
+        return (mask & requiredMask) == requiredMask;
+    }
+
+    /**
+     * Method that returns the number max of ingredients for a size
+     *
+     * @param size of the sandwich
+     * @return int
+     */
+    public int maxIngredients(SandwichSize size) {
+        return maxIngredients[size.ordinal()];
+    }
+
+    /**
+     * Helper function that reads the properties of the rules
+     *
+     * @return Properties
+     */
+    private static Properties load() {
+        Properties properties = new Properties();
+        String path = System.getProperty(PROPERTY);
+
+        try (InputStream in = (path == null) ? CompositionRules.class.getResourceAsStream(RESOURCE) : new FileInputStream(path)) {
+            if (in == null)
+                throw new IOException(RESOURCE + " not found");
+
+            properties.load(new InputStreamReader(in, StandardCharsets.UTF_8));
+        } catch (IOException e) {
+            throw new IllegalStateException("Cannot read the composition rules", e);
+        }
+
+        return properties;
+    }
+}
@@ -6,6 +6,7 @@ import boundary.Sandwich.SandwichResource;
 import entity.Category;
 import entity.Ingredient;
 import entity.Sandwich;
+import entity.SandwichSize;
 
 import javax.ejb.EJB;
 
@@ -18,6 +19,10 @@ public class DatabaseSeeder {
      * Method that creates fake insertions into the database
      */
     public static void feedCatalog(IngredientResource ingredientResource, CategoryResource categoryResource, SandwichResource sandwichResource){
+        // The database is kept between the deployments, it may be fed already
+        if (!done && !categoryResource.findAll().isEmpty())
+            done = true;
+
         if (!done) {
 
             Category category = categoryResource.insert(new Category("Pain"));
@@ -87,8 +92,8 @@ public class DatabaseSeeder {
             ingredientResource.insert(bbq);
 
 
-            sandwichResource.insert(new Sandwich(Sandwich.getSandwichSize0(),"The Chicken Ham","A sandwich made with Chicken and Ham", painBlanc, mache, tomate, jambon, poulet, emmental, beurre));
-            sandwichResource.insert(new Sandwich(Sandwich.getSandwichSize1(),"Le Marseillais","Le sandwich qui craint dégun", painBlanc, roquette, oignon, bacon, merguez, cheddar, bbq, tomate));
+            sandwichResource.insert(new Sandwich(SandwichSize.PETIT.name(),"The Chicken Ham","A sandwich made with Chicken and Ham", painBlanc, mache, tomate, jambon, poulet, emmental, beurre));
+            sandwichResource.insert(new Sandwich(SandwichSize.MOYEN.name(),"Le Marseillais","Le sandwich qui craint dégun", painBlanc, roquette, oignon, bacon, merguez, cheddar, bbq, tomate));
 
             done = true;
         }
@@ -0,0 +1,123 @@
+package control;
+
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.Set;
+
+/**
+ * What a client asks of a resource with ?fields= (its properties) and ?embed= (its associations, e.g.
+ * sandwiches.ingredients), read by the resources to load only these associations and by the representations
+ * to write only these properties
+ */
+public class Fieldset {
+
+    private final Set<String> fields;
+    private final Set<String> embeds;
+    private final boolean full;
+
+    private Fieldset(Set<String> fields, Set<String> embeds, boolean full) {
+        this.fields = fields;
+        this.embeds = embeds;
+        this.full = full;
+    }
+
+    /**
+     * Method that reads the parameters of a request
+     *
+     * @param fields      the value of ?fields=, comma separated, null or empty for all the properties
+     * @param embed       the value of ?embed=, comma separated paths, null or empty for none
+     * @param knownFields the properties of the resource
+     * @param knownEmbeds the paths that can be embedded
+     * @return the Fieldset, null if a name is unknown
+     */
+    public static Fieldset of(String fields, String embed, Set<String> knownFields, Set<String> knownEmbeds) {
+        Set<String> f = split(fields);
+        Set<String> e = split(embed);
+
+        if (!knownFields.containsAll(f) || !knownEmbeds.containsAll(e))
+            return null;
+
+        // Embedding sandwiches.ingredients embeds the sandwiches too
+        for (String path : new HashSet<>(e))
+            for (int i = path.indexOf('.'); i > 0; i = path.indexOf('.', i + 1))
+                e.add(path.substring(0, i));
+
+        return new Fieldset(f, e, fields == null && embed == null);
+    }
+
+    /**
+     * Method that tells if neither ?fields= nor ?embed= has been given, the whole entity is expected
+     *
+     * @return boolean
+     */
+    public boolean isFull() {
+        return full;
+    }
+
+    /**
+     * Method that tells if a property is asked
+     *
+     * @param field name of the property
+     * @return true if it's listed or if ?fields= is empty
+     */
+    public boolean has(String field) {
+        return fields.isEmpty() || fields.contains(field);
+    }
+
+    /**
+     * Method that tells if a property is listed in ?fields=, for the ones that cost an association
+     * and are only written when asked
+     *
+     * @param field name of the property
+     * @return boolean
+     */
+    public boolean lists(String field) {
+        return full || fields.contains(field);
+    }
+
+    /**
+     * Method that tells if an association is asked
+     *
+     * @param path of the association, e.g. sandwiches.ingredients
+     * @return boolean
+     */
+    public boolean embeds(String path) {
+        return full || embeds.contains(path);
+    }
+
+    /**
+     * Method that gives what is asked of an embedded association : all its properties and its own associations
+     *
+     * @param path of the association, e.g. sandwiches
+     * @return Fieldset of the association
+     */
+    public Fieldset embedded(String path) {
+        Set<String> e = new HashSet<>();
+        for (String embed : embeds)
+            if (embed.startsWith(path + "."))
+                e.add(embed.substring(path.length() + 1));
+
+        return new Fieldset(Collections.emptySet(), e, full);
+    }
+
+    /**
+     * Helper method
+     *
+     * @param names of the properties or paths
+     * @return Set of names
+     */
+    public static Set<String> names(String... names) {
+        return Collections.unmodifiableSet(new HashSet<>(Arrays.asList(names)));
+    }
+
+    private static Set<String> split(String value) {
+        Set<String> res = new HashSet<>();
+        if (value != null)
+            for (String name : value.split(","))
+                if (!name.trim().isEmpty())
+                    res.add(name.trim());
+
+        return res;
+    }
+}
@@ -0,0 +1,146 @@
+package control;
+
+import javax.annotation.Resource;
+import javax.ejb.*;
+import javax.sql.DataSource;
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+
+/**
+ * Checks of the dependencies for the readiness, cached so that the probes of the load balancer stay cheap
+ *
+ * System properties : lebonsandwich.health-cache-ms (5000, how long a result is reused)
+ * and lebonsandwich.health-timeout-ms (1000, how long the database has to answer)
+ */
+@Singleton
+@ConcurrencyManagement(ConcurrencyManagementType.BEAN)
+public class HealthChecks {
+
+    public final static String UP = "UP";
+    public final static String DOWN = "DOWN";
+    public final static String CACHE_PROPERTY = "lebonsandwich.health-cache-ms";
+    public final static String TIMEOUT_PROPERTY = "lebonsandwich.health-timeout-ms";
+    private final static long CACHE = Long.getLong(CACHE_PROPERTY, 5000);
+    private final static long TIMEOUT = Long.getLong(TIMEOUT_PROPERTY, 1000);
+
+    @Resource(lookup = "java:/jboss/datasources/ExampleDS")
+    DataSource dataSource;
+
+    @Resource
+    SessionContext sessionContext;
+
+    private volatile Check database;
+    private volatile Check receipts;
+    // The probe of the database still running, a slow database is not probed twice at once
+    private Future<Long> pending;
+
+    /**
+     * Method that checks that a connection of the datasource can be got and is valid
+     *
+     * @return the result, at most lebonsandwich.health-cache-ms old
+     */
+    public Map<String, Object> database() {
+        Check check = database;
+        if (check != null && check.isFresh())
+            return check.result;
+
+        Future<Long> probe = null;
+        try {
+            synchronized (this) {
+                check = database;
+                if (check != null && check.isFresh())
+                    return check.result;
+                // Declares the SQLException of the probe, it is thrown by the Future
+                if (pending == null)
+                    pending = sessionContext.getBusinessObject(HealthChecks.class).probeDatabase();
+                probe = pending;
+            }
+
+            check = new Check(UP, "latencyMs", TimeUnit.NANOSECONDS.toMicros(probe.get(TIMEOUT, TimeUnit.MILLISECONDS)) / 1000.0);
+            done(probe);
+        } catch (TimeoutException e) {
+            check = new Check(DOWN, "error", "No answer within " + TIMEOUT + " ms");
+        } catch (ExecutionException | SQLException e) {
+            check = new Check(DOWN, "error", String.valueOf(e instanceof ExecutionException ? e.getCause() : e));
+            done(probe);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            return new Check(DOWN, "error", "Interrupted").result;
+        }
+
+        database = check;
+        return check.result;
+    }
+
+    /**
+     * Method that gets a connection and checks it, out of the thread of the request so that it can be given up
+     *
+     * @return the time it took in ns
+     */
+    @Asynchronous
+    @TransactionAttribute(TransactionAttributeType.NOT_SUPPORTED)
+    public Future<Long> probeDatabase() throws SQLException {
+        long start = System.nanoTime();
+        try (Connection connection = dataSource.getConnection()) {
+            if (!connection.isValid((int) Math.max(1, TimeUnit.MILLISECONDS.toSeconds(TIMEOUT))))
+                throw new SQLException("Connection not valid");
+        }
+        return new AsyncResult<>(System.nanoTime() - start);
+    }
+
+    /**
+     * Method that checks that the receipts can be written in ReceiptGenerator.FOLDER
+     *
+     * @return the result, at most lebonsandwich.health-cache-ms old
+     */
+    public Map<String, Object> receipts() {
+        Check check = receipts;
+        if (check != null && check.isFresh())
+            return check.result;
+
+        File folder = new File(ReceiptGenerator.FOLDER);
+        try {
+            if (!folder.isDirectory() && !folder.mkdirs())
+                throw new IOException("Cannot create " + folder.getAbsolutePath());
+            Path probe = Files.createTempFile(folder.toPath(), "health", ".tmp");
+            Files.delete(probe);
+            check = new Check(UP, "folder", folder.getAbsolutePath());
+        } catch (IOException | SecurityException e) {
+            check = new Check(DOWN, "error", e.toString());
+        }
+
+        receipts = check;
+        return check.result;
+    }
+
+    private synchronized void done(Future<Long> probe) {
+        if (pending == probe)
+            pending = null;
+    }
+
+    private static class Check {
+
+        private final long checkedAt = System.currentTimeMillis();
+        private final Map<String, Object> result = new LinkedHashMap<>();
+
+        private Check(String status, String key, Object value) {
+            result.put("status", status);
+            result.put(key, value);
+            result.put("checkedAt", checkedAt);
+        }
+
+        private boolean isFresh() {
+            return System.currentTimeMillis() - checkedAt < CACHE;
+        }
+    }
+}
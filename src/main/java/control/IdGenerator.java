@@ -0,0 +1,15 @@
+package control;
+
+/**
+ * Generates the IDs of the entities
+ */
+public interface IdGenerator {
+
+    /**
+     * Method that returns a new ID, never returned before
+     *
+     * @return the ID
+     */
+    String next();
+
+}
@@ -0,0 +1,144 @@
+package control;
+
+import javax.enterprise.context.ApplicationScoped;
+import javax.ws.rs.core.MediaType;
+import javax.ws.rs.core.MultivaluedMap;
+import javax.ws.rs.core.Response;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+@ApplicationScoped
+public class IdempotencyStore {
+
+    private final static long TTL = TimeUnit.HOURS.toMillis(24);
+    private final static long PENDING_TTL = TimeUnit.MINUTES.toMillis(1);
+    private final static int SWEEP_EVERY = 256;
+
+    private final ConcurrentHashMap<String, Entry> entries = new ConcurrentHashMap<>();
+    private final AtomicInteger reservations = new AtomicInteger();
+
+    /**
+     * Method that reserves a key for the request about to be processed
+     *
+     * @param key         the scoped idempotency key
+     * @param requestHash hash of the body of the request, a retry must send the same
+     * @return null if the key is now reserved by the caller, else the entry already stored
+     */
+    public Entry reserve(String key, String requestHash) {
+        long now = System.currentTimeMillis();
+        Entry pending = new Entry(now, requestHash);
+        Entry existing = entries.putIfAbsent(key, pending);
+
+        if (existing != null && existing.isExpired(now)) {
+            entries.remove(key, existing);
+            existing = entries.putIfAbsent(key, pending);
+        }
+
+        if (existing == null && reservations.incrementAndGet() % SWEEP_EVERY == 0)
+            sweep(now);
+
+        return existing;
+    }
+
+    /**
+     * Method that stores the response of a reserved key
+     *
+     * @param key       the scoped idempotency key
+     * @param status    HTTP status of the response
+     * @param body      the serialized entity of the response, null if it has none
+     * @param mediaType media type of the response
+     * @param headers   the other headers of the response (Location, ETag ...)
+     */
+    public void complete(String key, int status, byte[] body, MediaType mediaType, MultivaluedMap<String, String> headers) {
+        Entry entry = entries.get(key);
+        if (entry != null)
+            entry.complete(status, body, mediaType, headers, System.currentTimeMillis());
+    }
+
+    /**
+     * Method that frees a key so that a retry runs the request again
+     *
+     * @param key the scoped idempotency key
+     */
+    public void release(String key) {
+        entries.remove(key);
+    }
+
+    /**
+     * Helper function that drops the expired entries
+     *
+     * @param now current time in milliseconds
+     */
+    private void sweep(long now) {
+        Iterator<Map.Entry<String, Entry>> iterator = entries.entrySet().iterator();
+        while (iterator.hasNext())
+            if (iterator.next().getValue().isExpired(now))
+                iterator.remove();
+    }
+
+    public static class Entry {
+
+        private volatile long time;
+        private volatile boolean completed;
+        private final String requestHash;
+        private int status;
+        // The bytes, not the entity : a JPA entity would be detached and changed by the time of the retry
+        private byte[] body;
+        private MediaType mediaType;
+        private MultivaluedMap<String, String> headers;
+
+        private Entry(long time, String requestHash) {
+            this.time = time;
+            this.requestHash = requestHash;
+        }
+
+        private void complete(int status, byte[] body, MediaType mediaType, MultivaluedMap<String, String> headers, long time) {
+            this.status = status;
+            this.body = body;
+            this.mediaType = mediaType;
+            this.headers = headers;
+            this.time = time;
+            this.completed = true;
+        }
+
+        private boolean isExpired(long now) {
+            return now - time > (completed ? TTL : PENDING_TTL);
+        }
+
+        public boolean isCompleted() {
+            return completed;
+        }
+
+        /**
+         * Method that tells if a request is the one the key has been used with
+         *
+         * @param requestHash hash of the body of the request
+         * @return boolean
+         */
+        public boolean matches(String requestHash) {
+            return this.requestHash.equals(requestHash);
+        }
+
+        /**
+         * Method that rebuilds the stored response
+         *
+         * @return Response
+         */
+        public Response toResponse() {
+            Response.ResponseBuilder builder = Response.status(status)
+                    .entity(body)
+                    .type(mediaType)
+                    .header("Idempotent-Replayed", "true");
+
+            for (Map.Entry<String, List<String>> header : headers.entrySet())
+                for (String value : header.getValue())
+                    builder.header(header.getKey(), value);
+
+            return builder.build();
+        }
+    }
+}
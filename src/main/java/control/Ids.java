@@ -0,0 +1,60 @@
+package control;
+
+import java.net.InetAddress;
+import java.net.UnknownHostException;
+
+/**
+ * The generator of the IDs of the application
+ * Chosen with the system property lebonsandwich.id-generator : snowflake (default) or uuid, the IDs already
+ * in the database stay valid whatever the choice
+ */
+public class Ids {
+
+    public final static String PROPERTY = "lebonsandwich.id-generator";
+    public final static String NODE_PROPERTY = "lebonsandwich.node-id";
+
+    private static volatile IdGenerator defaultGenerator;
+
+    private Ids() {}
+
+    /**
+     * Method that returns a new ID from the default generator
+     *
+     * @return the ID
+     */
+    public static String next() {
+        return getDefault().next();
+    }
+
+    /**
+     * Method that returns the generator chosen by the system properties
+     *
+     * @return the generator
+     */
+    public static IdGenerator getDefault() {
+        if (defaultGenerator == null) {
+            synchronized (Ids.class) {
+                if (defaultGenerator == null)
+                    defaultGenerator = "uuid".equalsIgnoreCase(System.getProperty(PROPERTY))
+                            ? new UuidIdGenerator()
+                            : new SnowflakeIdGenerator(node());
+            }
+        }
+
+        return defaultGenerator;
+    }
+
+    // Set it on each server of a cluster, else it's taken from the host name
+    private static int node() {
+        String node = System.getProperty(NODE_PROPERTY);
+        if (node != null)
+            return Integer.parseInt(node);
+
+        try {
+            return InetAddress.getLocalHost().getHostName().hashCode() & SnowflakeIdGenerator.MAX_NODE;
+        } catch (UnknownHostException e) {
+            return 0;
+        }
+    }
+
+}
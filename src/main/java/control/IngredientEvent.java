@@ -0,0 +1,29 @@
+package control;
+
+import entity.Ingredient;
+
+/**
+ * Fired by IngredientResource on each change of an ingredient
+ */
+public class IngredientEvent {
+
+    public final static String CREATED = "CREATED";
+    public final static String UPDATED = "UPDATED";
+    public final static String DELETED = "DELETED";
+
+    private final String type;
+    private final Ingredient ingredient;
+
+    public IngredientEvent(String type, Ingredient ingredient) {
+        this.type = type;
+        this.ingredient = ingredient;
+    }
+
+    public String getType() {
+        return type;
+    }
+
+    public Ingredient getIngredient() {
+        return ingredient;
+    }
+}
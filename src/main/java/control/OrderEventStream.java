@@ -0,0 +1,137 @@
+package control;
+
+import entity.OrderEvent;
+
+import javax.enterprise.context.ApplicationScoped;
+import javax.enterprise.event.Observes;
+import javax.enterprise.event.TransactionPhase;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Tells the streams of /orders/events up to which id the outbox can be read without a gap
+ * The ids are given at the insert but committed in any order : 11 can be visible while 10 is still in flight,
+ * a client that would move its cursor to 11 would never get 10. So an event is only sent once all the
+ * transactions that may hold a smaller id are completed (committed or rolled back)
+ */
+@ApplicationScoped
+public class OrderEventStream {
+
+    private final static int MAX_STREAMS = 100;
+
+    // Each event in flight with the smallest id it can get
+    private final ConcurrentHashMap<OrderEvent, Long> pending = new ConcurrentHashMap<>();
+    private final AtomicLong lastId = new AtomicLong();
+    private final AtomicInteger streams = new AtomicInteger();
+    private final Object monitor = new Object();
+    private long changes;
+
+    /**
+     * Method that registers an event before it's written, so that no stream goes past it until its transaction ends
+     *
+     * @param event to be written
+     */
+    public void begin(OrderEvent event) {
+        // An id given after this call is bigger than all the ids given before, lastId among them
+        pending.put(event, lastId.get() + 1);
+    }
+
+    /**
+     * Method that forgets an event that couldn't be written
+     *
+     * @param event that was registered
+     */
+    public void abort(OrderEvent event) {
+        pending.remove(event);
+        signal();
+    }
+
+    /**
+     * Method that releases the streams once the transaction of an event is over, whatever its outcome
+     *
+     * @param event of the order
+     */
+    public void onOrderEvent(@Observes(during = TransactionPhase.AFTER_COMPLETION) OrderEvent event) {
+        if (event.getId() != null)
+            seen(event.getId());
+        pending.remove(event);
+        signal();
+    }
+
+    /**
+     * Method that records an id already committed, e.g. the last one of the outbox when a stream starts
+     *
+     * @param id of an event
+     */
+    public void seen(long id) {
+        lastId.accumulateAndGet(id, Math::max);
+    }
+
+    /**
+     * Method that gives the biggest id that can be sent : every event up to it is committed or rolled back
+     * To be read before the outbox
+     *
+     * @return the id
+     */
+    public long horizon() {
+        long res = lastId.get();
+        for (Long smallest : pending.values())
+            res = Math.min(res, smallest - 1);
+
+        return res;
+    }
+
+    /**
+     * Method that gives the number of changes seen so far, to wait for the next one
+     *
+     * @return the number of changes
+     */
+    public long changes() {
+        synchronized (monitor) {
+            return changes;
+        }
+    }
+
+    /**
+     * Method that waits for a change after the ones already seen, or the timeout
+     *
+     * @param seen    number of changes already seen
+     * @param timeout in milliseconds
+     */
+    public void await(long seen, long timeout) throws InterruptedException {
+        long end = System.currentTimeMillis() + timeout;
+
+        synchronized (monitor) {
+            for (long left = timeout; changes == seen && left > 0; left = end - System.currentTimeMillis())
+                monitor.wait(left);
+        }
+    }
+
+    /**
+     * Method that counts a new stream
+     *
+     * @return false if there are already too many of them
+     */
+    public boolean open() {
+        if (streams.incrementAndGet() > MAX_STREAMS) {
+            streams.decrementAndGet();
+            return false;
+        }
+        return true;
+    }
+
+    /**
+     * Method that counts a stream that is over
+     */
+    public void close() {
+        streams.decrementAndGet();
+    }
+
+    private void signal() {
+        synchronized (monitor) {
+            changes++;
+            monitor.notifyAll();
+        }
+    }
+}
@@ -0,0 +1,227 @@
+package control;
+
+import entity.OrderEvent;
+import entity.Shipment;
+
+import javax.enterprise.context.ApplicationScoped;
+import javax.enterprise.event.Observes;
+import javax.enterprise.event.TransactionPhase;
+import javax.ws.rs.container.AsyncResponse;
+import javax.ws.rs.container.CompletionCallback;
+import javax.ws.rs.core.MediaType;
+import javax.ws.rs.core.Response;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Supplier;
+
+@ApplicationScoped
+public class OrderStatusNotifier {
+
+    private final static int MAX_CHANNELS = 50000;
+    private final static int MAX_WAITING = 10000;
+    private final static int MAX_WAITING_PER_ORDER = 32;
+    private final static long HEARTBEAT = 30;
+    private final static long IDLE = TimeUnit.SECONDS.toMillis(2 * HEARTBEAT);
+    private final static String RETRY_AFTER = "5";
+
+    private final ConcurrentHashMap<String, Channel> channels = new ConcurrentHashMap<>();
+    private final AtomicInteger waiting = new AtomicInteger();
+
+    /**
+     * Method that returns the channel of an order if it's already known
+     *
+     * @param orderId ID of the order
+     * @return Channel or null
+     */
+    public Channel find(String orderId) {
+        Channel channel = channels.get(orderId);
+        if (channel != null)
+            channel.lastUsed = System.currentTimeMillis();
+
+        return channel;
+    }
+
+    /**
+     * Method that opens the channel of an order loaded from the database
+     * The status is read again once the channel is registered : a change committed in between wasn't sent to it
+     *
+     * @param order  the order
+     * @param status reads the status of the order from the database, null if it has been deleted
+     * @return Channel or null if there are too many of them
+     */
+    public Channel open(Shipment order, Supplier<Integer> status) {
+        if (channels.size() >= MAX_CHANNELS)
+            evictIdle();
+        if (channels.size() >= MAX_CHANNELS)
+            return null;
+
+        Channel channel = new Channel(order.getId(), order.getCustomer().getEmail(), order.getStatus());
+        Channel existing = channels.putIfAbsent(order.getId(), channel);
+        if (existing != null)
+            return existing;
+
+        long changes = channel.changes();
+        Integer current = status.get();
+        channel.refresh(changes, current);
+        if (current == null)
+            channels.remove(order.getId(), channel);
+
+        return channel;
+    }
+
+    /**
+     * Method that parks a client until the status of the order changes or the heartbeat
+     *
+     * @param channel       of the order
+     * @param known         status known by the client
+     * @param asyncResponse the suspended response of the client
+     */
+    public void subscribe(Channel channel, int known, AsyncResponse asyncResponse) {
+        if (waiting.incrementAndGet() > MAX_WAITING) {
+            waiting.decrementAndGet();
+            asyncResponse.resume(unavailable());
+            return;
+        }
+        if (channel.size.incrementAndGet() > MAX_WAITING_PER_ORDER) {
+            channel.size.decrementAndGet();
+            waiting.decrementAndGet();
+            asyncResponse.resume(unavailable());
+            return;
+        }
+
+        channel.lastUsed = System.currentTimeMillis();
+        asyncResponse.register((CompletionCallback) throwable -> {
+            channel.subscribers.remove(asyncResponse);
+            channel.lastUsed = System.currentTimeMillis();
+            channel.size.decrementAndGet();
+            waiting.decrementAndGet();
+        });
+        asyncResponse.setTimeoutHandler(response -> response.resume(channel.toResponse()));
+        asyncResponse.setTimeout(HEARTBEAT, TimeUnit.SECONDS);
+        channel.subscribers.add(asyncResponse);
+
+        // The status may have changed while we were registering, or the channel been evicted and no longer notified
+        if (channel.status != known || channel.gone || channels.get(channel.orderId) != channel)
+            asyncResponse.resume(channel.toResponse());
+    }
+
+    /**
+     * Method that wakes up the clients waiting on an order, once the change is committed
+     *
+     * @param event of the order
+     */
+    public void onOrderEvent(@Observes(during = TransactionPhase.AFTER_SUCCESS) OrderEvent event) {
+        Channel channel = channels.get(event.getOrderId());
+
+        if (channel == null)
+            return;
+
+        boolean deleted = event.getType().equals(OrderEvent.DELETED);
+        channel.update(event.getStatus(), deleted);
+
+        if (deleted || event.getStatus() == Shipment.DELIVERED)
+            channels.remove(event.getOrderId(), channel);
+
+        Response response = channel.toResponse();
+        AsyncResponse subscriber;
+        while ((subscriber = channel.subscribers.poll()) != null)
+            subscriber.resume(response);
+    }
+
+    /**
+     * Method that builds the response sent to the clients
+     *
+     * @param orderId ID of the order
+     * @param status  of the order
+     * @return Response
+     */
+    public static Response toResponse(String orderId, int status) {
+        Map<String, Object> map = new HashMap<>();
+        map.put("orderId", orderId);
+        map.put("status", status);
+
+        return Response.ok(map, MediaType.APPLICATION_JSON).build();
+    }
+
+    /**
+     * Method that builds the response sent when there are too many clients
+     *
+     * @return Response
+     */
+    public static Response unavailable() {
+        return Response.status(Response.Status.SERVICE_UNAVAILABLE)
+                .header("Retry-After", RETRY_AFTER)
+                .build();
+    }
+
+    // Nobody has waited on them for two heartbeats, they are opened again from the database if needed
+    private void evictIdle() {
+        long before = System.currentTimeMillis() - IDLE;
+        channels.values().removeIf(channel -> channel.size.get() == 0 && channel.lastUsed < before);
+    }
+
+    public static class Channel {
+
+        private final String orderId;
+        private final String owner;
+        private volatile int status;
+        private volatile boolean gone;
+        private volatile long lastUsed = System.currentTimeMillis();
+        private long changes;
+        private final Queue<AsyncResponse> subscribers = new ConcurrentLinkedQueue<>();
+        private final AtomicInteger size = new AtomicInteger();
+
+        private Channel(String orderId, String owner, int status) {
+            this.orderId = orderId;
+            this.owner = owner;
+            this.status = status;
+        }
+
+        public String getOwner() {
+            return owner;
+        }
+
+        public int getStatus() {
+            return status;
+        }
+
+        public boolean isGone() {
+            return gone;
+        }
+
+        private synchronized long changes() {
+            return changes;
+        }
+
+        private synchronized void update(int status, boolean gone) {
+            this.status = status;
+            this.gone = gone;
+            changes++;
+        }
+
+        // A status read from the database is older than the one of an event received meanwhile
+        private synchronized void refresh(long seen, Integer status) {
+            if (changes != seen)
+                return;
+
+            if (status == null)
+                gone = true;
+            else
+                this.status = status;
+        }
+
+        /**
+         * Method that builds the response sent to the clients
+         *
+         * @return Response
+         */
+        public Response toResponse() {
+            return gone ? Response.status(Response.Status.GONE).build() : OrderStatusNotifier.toResponse(orderId, status);
+        }
+    }
+}
@@ -0,0 +1,96 @@
+package control;
+
+import org.hibernate.SessionFactory;
+import org.hibernate.stat.QueryStatistics;
+import org.hibernate.stat.Statistics;
+
+import javax.enterprise.context.ApplicationScoped;
+import javax.persistence.EntityManagerFactory;
+import javax.persistence.NamedQueries;
+import javax.persistence.NamedQuery;
+import javax.persistence.PersistenceUnit;
+import javax.persistence.metamodel.EntityType;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.TreeMap;
+
+@ApplicationScoped
+public class QueryMetrics {
+
+    @PersistenceUnit
+    EntityManagerFactory entityManagerFactory;
+
+    // JPQL of the named queries -> name
+    private volatile Map<String, String> names;
+
+    /**
+     * Method that writes the statistics of each query in the Prometheus text format (version 0.0.4),
+     * the named queries by their name (Shipment.findAll, ...), the others by their JPQL
+     *
+     * Needs hibernate.generate_statistics (persistence.xml)
+     *
+     * @param out where to write
+     */
+    public void scrape(StringBuilder out) {
+        Statistics statistics = entityManagerFactory.unwrap(SessionFactory.class).getStatistics();
+
+        if (!statistics.isStatisticsEnabled())
+            return;
+
+        Map<String, QueryStatistics> queries = new TreeMap<>();
+        for (String query : statistics.getQueries())
+            queries.put(name(query), statistics.getQueryStatistics(query));
+
+        out.append("# HELP jpa_query_executions_total Executions of the query\n");
+        out.append("# TYPE jpa_query_executions_total counter\n");
+        for (Map.Entry<String, QueryStatistics> query : queries.entrySet())
+            sample(out, "jpa_query_executions_total", query.getKey(), query.getValue().getExecutionCount());
+
+        out.append("# HELP jpa_query_seconds_total Time spent executing the query\n");
+        out.append("# TYPE jpa_query_seconds_total counter\n");
+        for (Map.Entry<String, QueryStatistics> query : queries.entrySet())
+            sample(out, "jpa_query_seconds_total", query.getKey(), query.getValue().getExecutionTotalTime() / 1e3);
+
+        out.append("# HELP jpa_query_seconds_max Slowest execution of the query\n");
+        out.append("# TYPE jpa_query_seconds_max gauge\n");
+        for (Map.Entry<String, QueryStatistics> query : queries.entrySet())
+            sample(out, "jpa_query_seconds_max", query.getKey(), query.getValue().getExecutionMaxTime() / 1e3);
+
+        out.append("# HELP jpa_query_rows_total Rows returned by the query\n");
+        out.append("# TYPE jpa_query_rows_total counter\n");
+        for (Map.Entry<String, QueryStatistics> query : queries.entrySet())
+            sample(out, "jpa_query_rows_total", query.getKey(), query.getValue().getExecutionRowCount());
+
+        // Loaded one by one, outside of the queries : they grow with the N+1
+        out.append("# HELP jpa_entity_fetches_total Entities loaded by a statement of their own (lazy loading)\n");
+        out.append("# TYPE jpa_entity_fetches_total counter\n");
+        out.append("jpa_entity_fetches_total ").append(statistics.getEntityFetchCount()).append('\n');
+        out.append("# HELP jpa_collection_fetches_total Collections loaded by a statement of their own (lazy loading)\n");
+        out.append("# TYPE jpa_collection_fetches_total counter\n");
+        out.append("jpa_collection_fetches_total ").append(statistics.getCollectionFetchCount()).append('\n');
+    }
+
+    private String name(String query) {
+        if (names == null) {
+            Map<String, String> map = new HashMap<>();
+            for (EntityType<?> entity : entityManagerFactory.getMetamodel().getEntities()) {
+                NamedQueries namedQueries = entity.getJavaType().getAnnotation(NamedQueries.class);
+                if (namedQueries != null)
+                    for (NamedQuery namedQuery : namedQueries.value())
+                        map.put(namedQuery.query(), namedQuery.name());
+                NamedQuery namedQuery = entity.getJavaType().getAnnotation(NamedQuery.class);
+                if (namedQuery != null)
+                    map.put(namedQuery.query(), namedQuery.name());
+            }
+            names = map;
+        }
+
+        String name = names.get(query);
+        return name != null ? name : query.replaceAll("\\s+", " ").trim();
+    }
+
+    private static void sample(StringBuilder out, String name, String query, Object value) {
+        out.append(name).append("{query=\"").append(query.replace("\\", "\\\\").replace("\"", "\\\"")).append("\"} ")
+                .append(value).append('\n');
+    }
+}
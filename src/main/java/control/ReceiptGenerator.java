@@ -3,6 +3,7 @@ package control;
 import java.io.File;
 import java.io.FileOutputStream;
 import java.io.IOException;
+import java.io.OutputStream;
 import java.net.URL;
 import java.util.Date;
 
@@ -51,30 +52,44 @@ public class ReceiptGenerator {
         }
 
         if (folderCreated) {
-            try {
-                String file = FOLDER + order.getId() + ".pdf";
-                Document document = new Document();
-                PdfWriter.getInstance(document, new FileOutputStream(file));
-                document.open();
-                addMetaData(document, order);
-                addTitlePage(document, order);
-                addContent(document, order);
-                addFooter(document,order,uriInfo);
-                Paragraph logo = new Paragraph();
-                addEmptyLine(logo, 2);
-                document.add(logo);
-                URL u = servletContext.getResource("/logo.jpg");
-                Image img = Image.getInstance(u.getPath());
-                img.setAlignment(Image.RIGHT);
-                document.add(img);
-                document.close();
-
+            try (OutputStream out = new FileOutputStream(FOLDER + order.getId() + ".pdf")) {
+                write(order, uriInfo, servletContext.getResource("/logo.jpg"), out);
             } catch (Exception e) {
                 e.printStackTrace();
             }
         }
     }
 
+    /**
+     * Method that renders the PDF of an order
+     * @param order
+     * @param uriInfo
+     * @param logo image at the end of the receipt, null for none
+     * @param out where the PDF is written
+     * @throws DocumentException
+     * @throws IOException
+     */
+    public static void write(Shipment order, UriInfo uriInfo, URL logo, OutputStream out) throws DocumentException, IOException {
+        Document document = new Document();
+        PdfWriter.getInstance(document, out);
+        document.open();
+        addMetaData(document, order);
+        addTitlePage(document, order);
+        addContent(document, order);
+        addFooter(document,order,uriInfo);
+
+        if (logo != null) {
+            Paragraph space = new Paragraph();
+            addEmptyLine(space, 2);
+            document.add(space);
+            Image img = Image.getInstance(logo.getPath());
+            img.setAlignment(Image.RIGHT);
+            document.add(img);
+        }
+
+        document.close();
+    }
+
     /**
      * Method to add Meta datas to the pdf (right click in adobe)
      * @param document
@@ -165,14 +180,15 @@ public class ReceiptGenerator {
         text.add(signature);
         addEmptyLine(text, 1);
 
-        try {
-
-            URL u = ReceiptGenerator.class.getResource("WEB-INF/logo.jpg");
-            Image img = Image.getInstance(u.getPath());
-            img.setAlignment(Image.RIGHT);
-            document.add(img);
-        }catch (Exception e){
-            e.printStackTrace();
+        URL u = ReceiptGenerator.class.getResource("WEB-INF/logo.jpg");
+        if (u != null) {
+            try {
+                Image img = Image.getInstance(u.getPath());
+                img.setAlignment(Image.RIGHT);
+                document.add(img);
+            } catch (Exception e) {
+                e.printStackTrace();
+            }
         }
 
         document.add(text);
@@ -0,0 +1,171 @@
+package control;
+
+import org.HdrHistogram.Histogram;
+import org.HdrHistogram.Recorder;
+
+import javax.enterprise.context.ApplicationScoped;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.logging.Logger;
+
+@ApplicationScoped
+public class RequestMetrics {
+
+    private final static Logger LOGGER = Logger.getLogger(RequestMetrics.class.getName());
+    // More statements than that for one request is likely a N+1 (lazy loading in a loop)
+    public final static String BUDGET_PROPERTY = "lebonsandwich.statement-budget";
+    private final static int STATEMENT_BUDGET = Integer.getInteger(BUDGET_PROPERTY, 20);
+
+    private final static double[] QUANTILES = {0.5, 0.9, 0.99, 0.999};
+    // Latencies are recorded in microseconds, from 1 µs to 1 hour with 3 significant digits
+    private final static long HIGHEST_LATENCY = TimeUnit.HOURS.toMicros(1);
+
+    private final ConcurrentHashMap<String, Timer> timers = new ConcurrentHashMap<>();
+
+    /**
+     * Method that returns the timer of an endpoint, created the first time
+     *
+     * @param endpoint HTTP method and path template, e.g. GET /orders/{id}/status
+     * @return the timer
+     */
+    public Timer timer(String endpoint) {
+        Timer timer = timers.get(endpoint);
+        return timer != null ? timer : timers.computeIfAbsent(endpoint, Timer::new);
+    }
+
+    /**
+     * Method that writes the metrics in the Prometheus text format (version 0.0.4)
+     *
+     * The quantiles are those of the requests completed since the previous scrape, the counts are cumulative
+     *
+     * @param out where to write
+     */
+    public void scrape(StringBuilder out) {
+        Map<String, Timer> sorted = new TreeMap<>(timers);
+
+        out.append("# HELP http_server_requests_seconds Duration of the requests, quantiles since the previous scrape\n");
+        out.append("# TYPE http_server_requests_seconds summary\n");
+        for (Timer timer : sorted.values())
+            timer.scrapeLatencies(out);
+
+        out.append("# HELP http_server_requests_total Completed requests by status class\n");
+        out.append("# TYPE http_server_requests_total counter\n");
+        for (Timer timer : sorted.values())
+            timer.scrapeStatuses(out);
+
+        out.append("# HELP http_server_requests_statements_total JDBC statements run by the requests\n");
+        out.append("# TYPE http_server_requests_statements_total counter\n");
+        for (Timer timer : sorted.values())
+            sample(out, "http_server_requests_statements_total", timer.endpoint, null, timer.statements.sum());
+
+        out.append("# HELP http_server_requests_statements_seconds_total Time spent in the JDBC statements run by the requests\n");
+        out.append("# TYPE http_server_requests_statements_seconds_total counter\n");
+        for (Timer timer : sorted.values())
+            sample(out, "http_server_requests_statements_seconds_total", timer.endpoint, null, timer.statementNanos.sum() / 1e9);
+
+        out.append("# HELP http_server_requests_over_statement_budget_total Requests that ran more than " + STATEMENT_BUDGET + " statements (likely N+1)\n");
+        out.append("# TYPE http_server_requests_over_statement_budget_total counter\n");
+        for (Timer timer : sorted.values())
+            sample(out, "http_server_requests_over_statement_budget_total", timer.endpoint, null, timer.overBudget.sum());
+
+        out.append("# HELP http_server_requests_in_flight Requests being processed\n");
+        out.append("# TYPE http_server_requests_in_flight gauge\n");
+        for (Timer timer : sorted.values())
+            sample(out, "http_server_requests_in_flight", timer.endpoint, null, timer.inFlight.sum());
+    }
+
+    /**
+     * Method that tells if a request ran more statements than the budget
+     *
+     * @param counts statements run by the request
+     * @return true if it is likely a N+1
+     */
+    public static boolean isOverBudget(StatementCounter.Counts counts) {
+        return counts.getStatements() > STATEMENT_BUDGET;
+    }
+
+    private static void sample(StringBuilder out, String name, String endpoint, String label, Object value) {
+        out.append(name).append("{endpoint=\"").append(endpoint.replace("\\", "\\\\").replace("\"", "\\\"")).append('"');
+        if (label != null)
+            out.append(',').append(label);
+        out.append("} ").append(value).append('\n');
+    }
+
+    public static class Timer {
+
+        private final String endpoint;
+        // Recording is wait-free, only the scrape swaps the interval histograms
+        private final Recorder recorder = new Recorder(HIGHEST_LATENCY, 3);
+        private final LongAdder[] statuses = new LongAdder[5];
+        private final LongAdder sumMicros = new LongAdder();
+        private final LongAdder inFlight = new LongAdder();
+        private final LongAdder statements = new LongAdder();
+        private final LongAdder statementNanos = new LongAdder();
+        private final LongAdder overBudget = new LongAdder();
+        private Histogram interval;
+
+        Timer(String endpoint) {
+            this.endpoint = endpoint;
+            for (int i = 0; i < statuses.length; i++)
+                statuses[i] = new LongAdder();
+        }
+
+        /**
+         * Method called when a request starts
+         *
+         * @return the start, to give to stop
+         */
+        public long start() {
+            inFlight.increment();
+            return System.nanoTime();
+        }
+
+        /**
+         * Method called when a request ends
+         *
+         * @param start  returned by start
+         * @param status HTTP status of the response
+         * @param counts statements run by the request, null if not counted
+         */
+        public void stop(long start, int status, StatementCounter.Counts counts) {
+            long micros = Math.min(HIGHEST_LATENCY, Math.max(1, (System.nanoTime() - start) / 1000));
+            recorder.recordValue(micros);
+            sumMicros.add(micros);
+            statuses[Math.min(4, Math.max(0, status / 100 - 1))].increment();
+            inFlight.decrement();
+
+            if (counts == null)
+                return;
+
+            statements.add(counts.getStatements());
+            statementNanos.add(counts.getNanos());
+            if (isOverBudget(counts)) {
+                // Logged once per endpoint, the metric counts the others
+                if (overBudget.sum() == 0)
+                    LOGGER.warning(endpoint + " ran " + counts.getStatements() + " statements, more than the budget of "
+                            + STATEMENT_BUDGET + " (" + BUDGET_PROPERTY + "), likely a N+1");
+                overBudget.increment();
+            }
+        }
+
+        private synchronized void scrapeLatencies(StringBuilder out) {
+            interval = recorder.getIntervalHistogram(interval);
+            for (double quantile : QUANTILES)
+                sample(out, "http_server_requests_seconds", endpoint, "quantile=\"" + quantile + "\"",
+                        interval.getTotalCount() == 0 ? "NaN" : String.valueOf(interval.getValueAtPercentile(quantile * 100) / 1e6));
+            sample(out, "http_server_requests_seconds_sum", endpoint, null, sumMicros.sum() / 1e6);
+            long count = 0;
+            for (LongAdder status : statuses)
+                count += status.sum();
+            sample(out, "http_server_requests_seconds_count", endpoint, null, count);
+        }
+
+        private void scrapeStatuses(StringBuilder out) {
+            for (int i = 0; i < statuses.length; i++)
+                sample(out, "http_server_requests_total", endpoint, "status=\"" + (i + 1) + "xx\"", statuses[i].sum());
+        }
+    }
+}
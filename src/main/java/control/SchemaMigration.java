@@ -0,0 +1,69 @@
+package control;
+
+import org.flywaydb.core.Flyway;
+
+import javax.annotation.PostConstruct;
+import javax.annotation.Resource;
+import javax.ejb.Singleton;
+import javax.ejb.Startup;
+import javax.ejb.TransactionManagement;
+import javax.ejb.TransactionManagementType;
+import javax.sql.DataSource;
+import java.util.logging.Logger;
+
+/**
+ * Brings the schema of the database to the last version of src/main/resources/db/migration, once at startup
+ * The migrations already applied are validated against their checksum, never run again
+ * A database created by Hibernate before the migrations (tables but no schema_version, e.g. ExampleDS kept
+ * alive by DB_CLOSE_DELAY across a redeploy) is taken as version 1, the next ones are applied to it
+ * They have already run when this bean starts, see SchemaMigrationIntegrator : this run only finds them applied
+ * The beans reading the database at startup depend on this one
+ */
+@Singleton
+@Startup
+@TransactionManagement(TransactionManagementType.BEAN)
+public class SchemaMigration {
+
+    private final static Logger LOGGER = Logger.getLogger(SchemaMigration.class.getName());
+    private final static String LOCATION = "classpath:db/migration";
+    private final static String BASELINE = "1";
+
+    @Resource(lookup = "java:/jboss/datasources/ExampleDS")
+    DataSource dataSource;
+
+    private String version;
+
+    @PostConstruct
+    public void migrate() {
+        Flyway flyway = flyway(dataSource);
+        int applied = flyway.migrate();
+        version = flyway.info().current().getVersion().getVersion();
+
+        LOGGER.info("Schema at version " + version + ", " + applied + " migrations applied");
+    }
+
+    /**
+     * Method that configures the migrations of a database
+     *
+     * @param dataSource of the database
+     * @return Flyway
+     */
+    static Flyway flyway(DataSource dataSource) {
+        Flyway flyway = new Flyway();
+        flyway.setDataSource(dataSource);
+        flyway.setLocations(LOCATION);
+        flyway.setBaselineOnMigrate(true);
+        flyway.setBaselineVersionAsString(BASELINE);
+        return flyway;
+    }
+
+    /**
+     * Method that returns the version of the schema
+     *
+     * @return the version
+     */
+    public String getVersion() {
+        return version;
+    }
+
+}
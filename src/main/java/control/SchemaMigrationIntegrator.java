@@ -0,0 +1,37 @@
+package control;
+
+import org.hibernate.boot.Metadata;
+import org.hibernate.engine.jdbc.connections.spi.ConnectionProvider;
+import org.hibernate.engine.spi.SessionFactoryImplementor;
+import org.hibernate.integrator.spi.Integrator;
+import org.hibernate.service.spi.SessionFactoryServiceRegistry;
+
+import javax.sql.DataSource;
+import java.util.logging.Logger;
+
+/**
+ * Runs the migrations while Hibernate builds the persistence unit, before it validates the schema
+ * (hibernate.hbm2ddl.auto in persistence.xml) : the unit is deployed before SchemaMigration starts
+ *
+ * Registered in META-INF/services/org.hibernate.integrator.spi.Integrator
+ */
+public class SchemaMigrationIntegrator implements Integrator {
+
+    private final static Logger LOGGER = Logger.getLogger(SchemaMigrationIntegrator.class.getName());
+
+    @Override
+    public void integrate(Metadata metadata, SessionFactoryImplementor sessionFactory, SessionFactoryServiceRegistry serviceRegistry) {
+        ConnectionProvider connectionProvider = serviceRegistry.getService(ConnectionProvider.class);
+
+        // The units opened from a JDBC URL (the benchmarks) manage their schema themselves
+        if (!connectionProvider.isUnwrappableAs(DataSource.class))
+            return;
+
+        int applied = SchemaMigration.flyway(connectionProvider.unwrap(DataSource.class)).migrate();
+        LOGGER.info(applied + " migrations applied before the validation of the schema");
+    }
+
+    @Override
+    public void disintegrate(SessionFactoryImplementor sessionFactory, SessionFactoryServiceRegistry serviceRegistry) {
+    }
+}
@@ -0,0 +1,83 @@
+package control;
+
+/**
+ * Time-ordered IDs on 64 bits : 41 bits of milliseconds, 10 bits of node and 12 bits of sequence
+ * Written with 13 characters of Crockford base 32, so the order of the strings is the order of creation
+ * and the new rows always go at the end of the indexes
+ */
+public class SnowflakeIdGenerator implements IdGenerator {
+
+    // 2017-01-01T00:00:00Z, the 41 bits last until 2086
+    public final static long EPOCH = 1483228800000L;
+    public final static int MAX_NODE = (1 << 10) - 1;
+    public final static int LENGTH = 13;
+
+    private final static int SEQUENCE_BITS = 12;
+    private final static int NODE_BITS = 10;
+    private final static long SEQUENCE_MASK = (1L << SEQUENCE_BITS) - 1;
+    private final static char[] ALPHABET = "0123456789ABCDEFGHJKMNPQRSTVWXYZ".toCharArray();
+
+    private final long node;
+    private long lastTimestamp = -1;
+    private long sequence = 0;
+
+    /**
+     * Constructor of a generator
+     *
+     * @param node number of this server, between 0 and MAX_NODE, two servers sharing a database need different ones
+     */
+    public SnowflakeIdGenerator(int node) {
+        if (node < 0 || node > MAX_NODE)
+            throw new IllegalArgumentException("The node must be between 0 and " + MAX_NODE + " : " + node);
+
+        this.node = node;
+    }
+
+    @Override
+    public String next() {
+        return encode(nextLong());
+    }
+
+    /**
+     * Method that returns a new ID as a number
+     *
+     * @return the ID
+     */
+    public synchronized long nextLong() {
+        long timestamp = System.currentTimeMillis();
+
+        // The clock went back : carry on from the last millisecond rather than repeat IDs
+        if (timestamp < lastTimestamp)
+            timestamp = lastTimestamp;
+
+        if (timestamp == lastTimestamp) {
+            sequence = (sequence + 1) & SEQUENCE_MASK;
+            // 4096 IDs in this millisecond already : borrow the next one
+            if (sequence == 0)
+                timestamp++;
+        } else {
+            sequence = 0;
+        }
+
+        lastTimestamp = timestamp;
+        return ((timestamp - EPOCH) << (NODE_BITS + SEQUENCE_BITS)) | (node << SEQUENCE_BITS) | sequence;
+    }
+
+    /**
+     * Method that writes an ID with the 13 characters of Crockford base 32
+     *
+     * @param id the ID
+     * @return the ID as a string
+     */
+    public static String encode(long id) {
+        char[] chars = new char[LENGTH];
+
+        for (int i = LENGTH - 1; i >= 0; i--) {
+            chars[i] = ALPHABET[(int) (id & 31)];
+            id >>>= 5;
+        }
+
+        return new String(chars);
+    }
+
+}
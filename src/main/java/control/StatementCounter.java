@@ -0,0 +1,81 @@
+package control;
+
+import org.hibernate.BaseSessionEventListener;
+
+/**
+ * Counts and times the JDBC statements run by Hibernate for the request being processed by the thread,
+ * a JDBC batch (hibernate.jdbc.batch_size) counting as one statement
+ *
+ * Hibernate creates one per session (hibernate.session.events.auto in persistence.xml, read by the 5.2 of WildFly)
+ * The thread always stops counting at the end of the request, see StatementCounterFilter
+ */
+public class StatementCounter extends BaseSessionEventListener {
+
+    private static final long serialVersionUID = 1L;
+
+    private final static ThreadLocal<Counts> CURRENT = new ThreadLocal<>();
+
+    private long start;
+
+    /**
+     * Method that starts counting the statements of the thread
+     *
+     * @return the counts, updated until finish is called
+     */
+    public static Counts begin() {
+        Counts counts = new Counts();
+        CURRENT.set(counts);
+        return counts;
+    }
+
+    /**
+     * Method that stops counting the statements of the thread
+     */
+    public static void finish() {
+        CURRENT.remove();
+    }
+
+    @Override
+    public void jdbcExecuteStatementStart() {
+        start = System.nanoTime();
+    }
+
+    @Override
+    public void jdbcExecuteStatementEnd() {
+        record();
+    }
+
+    @Override
+    public void jdbcExecuteBatchStart() {
+        start = System.nanoTime();
+    }
+
+    @Override
+    public void jdbcExecuteBatchEnd() {
+        record();
+    }
+
+    private void record() {
+        Counts counts = CURRENT.get();
+
+        if (counts != null) {
+            counts.statements++;
+            counts.nanos += System.nanoTime() - start;
+        }
+    }
+
+    public static class Counts {
+
+        // Only the thread of the request writes them
+        private volatile int statements;
+        private volatile long nanos;
+
+        public int getStatements() {
+            return statements;
+        }
+
+        public long getNanos() {
+            return nanos;
+        }
+    }
+}
@@ -0,0 +1,15 @@
+package control;
+
+import java.util.UUID;
+
+/**
+ * The IDs used before : random UUID, 36 characters
+ */
+public class UuidIdGenerator implements IdGenerator {
+
+    @Override
+    public String next() {
+        return UUID.randomUUID().toString();
+    }
+
+}
@@ -0,0 +1,192 @@
+package control;
+
+import boundary.Account.AccountResource;
+import boundary.Category.CategoryResource;
+import boundary.Ingredient.IngredientResource;
+import boundary.Sandwich.SandwichResource;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import entity.Account;
+import entity.Sandwich;
+import entity.Shipment;
+import io.jsonwebtoken.Jwts;
+import io.jsonwebtoken.SignatureAlgorithm;
+import provider.Filter.AuthenticationFilter;
+
+import javax.annotation.Resource;
+import javax.ejb.*;
+import javax.inject.Inject;
+import javax.sql.DataSource;
+import java.io.ByteArrayOutputStream;
+import java.net.URL;
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.Date;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+import java.util.logging.Logger;
+
+/**
+ * Runs once after the deployment the paths that are slow the first times (JPA queries, catalog seeding,
+ * serialization, iText fonts and images, JWT, connections of the pool) so that the customers don't pay for it,
+ * the readiness reports ready once it is done
+ *
+ * System properties : lebonsandwich.warmup (true by default, false to skip it), lebonsandwich.warmup-iterations (50)
+ * and lebonsandwich.warmup-connections (10, connections of the pool opened at once)
+ */
+@Singleton
+@ConcurrencyManagement(ConcurrencyManagementType.BEAN)
+public class Warmup {
+
+    private final static Logger LOGGER = Logger.getLogger(Warmup.class.getName());
+    public final static String PROPERTY = "lebonsandwich.warmup";
+    public final static String ITERATIONS_PROPERTY = "lebonsandwich.warmup-iterations";
+    public final static String CONNECTIONS_PROPERTY = "lebonsandwich.warmup-connections";
+
+    @EJB
+    CategoryResource categoryResource;
+
+    @EJB
+    IngredientResource ingredientResource;
+
+    @EJB
+    SandwichResource sandwichResource;
+
+    @EJB
+    AccountResource accountResource;
+
+    @Inject
+    KeyGenerator keyGenerator;
+
+    @Resource(lookup = "java:/jboss/datasources/ExampleDS")
+    DataSource dataSource;
+
+    private volatile boolean ready = false;
+    // Step -> duration in ms, or the error
+    private final Map<String, Object> steps = new LinkedHashMap<>();
+
+    /**
+     * Method that runs the warmup, then reports ready
+     *
+     * @param logo image of the receipts
+     */
+    @Asynchronous
+    @TransactionAttribute(TransactionAttributeType.NOT_SUPPORTED)
+    public void start(URL logo) {
+        if (!Boolean.parseBoolean(System.getProperty(PROPERTY, "true"))) {
+            LOGGER.info("Warmup skipped (" + PROPERTY + "=false)");
+            ready = true;
+            return;
+        }
+
+        int iterations = Integer.getInteger(ITERATIONS_PROPERTY, 50);
+        long start = System.nanoTime();
+
+        List<Sandwich> sandwiches = new ArrayList<>();
+        step("catalog", () -> {
+            DatabaseSeeder.feedCatalog(ingredientResource, categoryResource, sandwichResource);
+            ObjectMapper mapper = new ObjectMapper();
+            for (int i = 0; i < iterations; i++) {
+                sandwiches.clear();
+                sandwiches.addAll(sandwichResource.findAll());
+                // The ingredients of the sandwiches are lazy, they are not loaded out of a transaction
+                mapper.writeValueAsBytes(ingredientResource.findAll());
+                mapper.writeValueAsBytes(categoryResource.findAll());
+                accountResource.findSummaries(null, null, null, 20);
+            }
+        });
+
+        step("receipt", () -> {
+            Account customer = new Account("Warmup", "warmup@lebonsandwich.fr", "");
+            // The footer of a customer without card needs the URI of the request
+            customer.createCard();
+            Shipment order = new Shipment(customer, "01/01/2030 12:00",
+                    sandwiches.subList(0, Math.min(5, sandwiches.size())));
+            order.setId("warmup");
+            for (int i = 0; i < iterations; i++)
+                ReceiptGenerator.write(order, null, logo, new ByteArrayOutputStream(64 * 1024));
+        });
+
+        step("jwt", () -> {
+            for (int i = 0; i < iterations; i++) {
+                String token = Jwts.builder()
+                        .setSubject("warmup@lebonsandwich.fr")
+                        .setIssuer("warmup")
+                        .setIssuedAt(new Date())
+                        .setExpiration(new Date(System.currentTimeMillis() + TimeUnit.MINUTES.toMillis(1)))
+                        .signWith(SignatureAlgorithm.HS512, keyGenerator.generateKey())
+                        .compact();
+                AuthenticationFilter.subject(token);
+            }
+        });
+
+        step("pool", () -> {
+            // Opened together, so the pool creates as many
+            List<Connection> connections = new ArrayList<>();
+            try {
+                for (int i = 0; i < Integer.getInteger(CONNECTIONS_PROPERTY, 10); i++) {
+                    Connection connection = dataSource.getConnection();
+                    connections.add(connection);
+                    connection.isValid(1);
+                }
+            } finally {
+                for (Connection connection : connections)
+                    close(connection);
+            }
+        });
+
+        ready = true;
+        LOGGER.info("Warmup done in " + TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start) + " ms " + getSteps());
+    }
+
+    /**
+     * Method that tells if the warmup is done
+     *
+     * @return true once done (or skipped)
+     */
+    public boolean isReady() {
+        return ready;
+    }
+
+    /**
+     * Method that returns the duration of each step in ms, or its error
+     *
+     * @return Map
+     */
+    public Map<String, Object> getSteps() {
+        synchronized (steps) {
+            return new LinkedHashMap<>(steps);
+        }
+    }
+
+    // A failed step is logged, it doesn't prevent the others nor the readiness
+    private void step(String name, Step step) {
+        long start = System.nanoTime();
+        Object result;
+        try {
+            step.run();
+            result = TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start);
+        } catch (Exception e) {
+            LOGGER.warning("Warmup step " + name + " failed : " + e);
+            result = e.toString();
+        }
+
+        synchronized (steps) {
+            steps.put(name, result);
+        }
+    }
+
+    private static void close(Connection connection) {
+        try {
+            connection.close();
+        } catch (SQLException e) {
+            LOGGER.warning("Cannot close a connection of the warmup : " + e.getMessage());
+        }
+    }
+
+    private interface Step {
+        void run() throws Exception;
+    }
+}
@@ -4,6 +4,7 @@ import javax.persistence.Entity;
 import javax.persistence.Id;
 import javax.persistence.NamedQueries;
 import javax.persistence.NamedQuery;
+import javax.persistence.Version;
 import javax.xml.bind.annotation.XmlRootElement;
 import java.io.Serializable;
 
@@ -23,6 +24,9 @@ public class Account implements Serializable {
     @Id
     private String email;
 
+    @Version
+    private Long version;
+
     private String name, password;
 
     private double vipCard;
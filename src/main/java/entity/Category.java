@@ -4,6 +4,7 @@ import javax.persistence.Entity;
 import javax.persistence.Id;
 import javax.persistence.NamedQueries;
 import javax.persistence.NamedQuery;
+import javax.persistence.Version;
 import javax.xml.bind.annotation.XmlRootElement;
 import java.io.Serializable;
 
@@ -11,6 +12,7 @@ import java.io.Serializable;
 @XmlRootElement
 @NamedQueries({
         @NamedQuery(name = "Category.findAll", query = "SELECT c FROM Category c"),
+        @NamedQuery(name = "Category.findVersion", query = "SELECT c.version FROM Category c WHERE c.id = :id"),
 })
 public class Category implements Serializable {
 
@@ -18,6 +20,10 @@ public class Category implements Serializable {
 
     @Id
     private String id;
+
+    @Version
+    private Long version;
+
     private String name;
 
     /**
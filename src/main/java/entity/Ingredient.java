@@ -12,6 +12,7 @@ import java.util.List;
 @NamedQueries({
         @NamedQuery(name = "Ingredient.findAll", query = "SELECT i FROM Ingredient i"),
         @NamedQuery(name = "Ingredient.findByName", query = "SELECT i FROM Ingredient i WHERE i.name = :name"),
+        @NamedQuery(name = "Ingredient.findVersions", query = "SELECT i.version, c.version FROM Ingredient i LEFT JOIN i.category c WHERE i.id = :id"),
 })
 public class Ingredient implements Serializable {
 
@@ -20,6 +21,9 @@ public class Ingredient implements Serializable {
     @Id
     private String id;
 
+    @Version
+    private Long version;
+
     private String name, description;
     private double price;
 
@@ -0,0 +1,118 @@
+package entity;
+
+import javax.persistence.*;
+import javax.xml.bind.annotation.XmlRootElement;
+import java.io.Serializable;
+
+@Entity
+@XmlRootElement
+@NamedQueries({
+        @NamedQuery(name = "OrderEvent.findAfter", query = "SELECT e FROM OrderEvent e WHERE e.id > :id AND e.id <= :horizon ORDER BY e.id"),
+        @NamedQuery(name = "OrderEvent.findLastId", query = "SELECT MAX(e.id) FROM OrderEvent e"),
+        @NamedQuery(name = "OrderEvent.deleteBefore", query = "DELETE FROM OrderEvent e WHERE e.createdAt < :createdAt")
+})
+public class OrderEvent implements Serializable {
+// The outbox of the orders : one row per change, written in the same transaction as the change
+
+    private static final long serialVersionUID = 1L;
+
+    public final static String CREATED = "CREATED";
+    public final static String UPDATED = "UPDATED";
+    public final static String DELETED = "DELETED";
+
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    private Long id;
+
+    private String type;
+
+    private String orderId;
+
+    private int status;
+
+    private double price;
+
+    private String dateTime;
+
+    private long createdAt;
+
+    /**
+     * Empty constructor
+     */
+    public OrderEvent() {}
+
+    /**
+     * Constructor of an event
+     *
+     * @param type  CREATED, UPDATED or DELETED
+     * @param order the order concerned
+     */
+    public OrderEvent(String type, Shipment order) {
+        this.type = type;
+        this.orderId = order.getId();
+        this.status = order.getStatus();
+        this.price = order.getPrice();
+        this.dateTime = order.getDateTime();
+        this.createdAt = System.currentTimeMillis();
+    }
+
+    /**
+     * - Getter and Setter functions -
+     */
+
+    public Long getId() {
+        return id;
+    }
+
+    public void setId(Long id) {
+        this.id = id;
+    }
+
+    public String getType() {
+        return type;
+    }
+
+    public void setType(String type) {
+        this.type = type;
+    }
+
+    public String getOrderId() {
+        return orderId;
+    }
+
+    public void setOrderId(String orderId) {
+        this.orderId = orderId;
+    }
+
+    public int getStatus() {
+        return status;
+    }
+
+    public void setStatus(int status) {
+        this.status = status;
+    }
+
+    public double getPrice() {
+        return price;
+    }
+
+    public void setPrice(double price) {
+        this.price = price;
+    }
+
+    public String getDateTime() {
+        return dateTime;
+    }
+
+    public void setDateTime(String dateTime) {
+        this.dateTime = dateTime;
+    }
+
+    public long getCreatedAt() {
+        return createdAt;
+    }
+
+    public void setCreatedAt(long createdAt) {
+        this.createdAt = createdAt;
+    }
+}
@@ -0,0 +1,29 @@
+package entity;
+
+/**
+ * Prices are computed in cents to stay exact, and shown in euros
+ */
+public final class Price {
+
+    private Price() {}
+
+    /**
+     * Method that converts a price in euros into cents
+     *
+     * @param euros the price
+     * @return the price in cents
+     */
+    public static long toCents(double euros) {
+        return Math.round(euros * 100);
+    }
+
+    /**
+     * Method that converts a price in cents into euros
+     *
+     * @param cents the price
+     * @return the price in euros
+     */
+    public static double toEuros(long cents) {
+        return cents / 100.0;
+    }
+}
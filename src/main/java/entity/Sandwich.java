@@ -1,32 +1,41 @@
 package entity;
 
 import com.fasterxml.jackson.annotation.JsonManagedReference;
+import control.CompositionRules;
 
 import javax.persistence.*;
 import javax.xml.bind.annotation.XmlElement;
 import javax.xml.bind.annotation.XmlRootElement;
 import java.io.Serializable;
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
 import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.List;
 
 @Entity
 @XmlRootElement
 @NamedQueries({
-        @NamedQuery(name = "Sandwich.findAll", query = "SELECT i FROM Sandwich i")
+        @NamedQuery(name = "Sandwich.findAll", query = "SELECT i FROM Sandwich i WHERE i.fingerprint IS NULL"),
+        @NamedQuery(name = "Sandwich.findIdsByIngredient", query = "SELECT DISTINCT s.id FROM Sandwich s JOIN s.ingredientsList i WHERE i.id = :id AND s.fingerprint IS NULL"),
+        @NamedQuery(name = "Sandwich.findByIds", query = "SELECT DISTINCT s FROM Sandwich s LEFT JOIN FETCH s.ingredientsList WHERE s.id IN :ids"),
+        @NamedQuery(name = "Sandwich.fetchIngredients", query = "SELECT DISTINCT s FROM Sandwich s LEFT JOIN FETCH s.ingredientsList i LEFT JOIN FETCH i.category WHERE s IN :sandwiches"),
+        @NamedQuery(name = "Sandwich.findVersions", query = "SELECT s.version, COALESCE(SUM(i.version), 0), COALESCE(SUM(c.version), 0) "
+                + "FROM Sandwich s LEFT JOIN s.ingredientsList i LEFT JOIN i.category c WHERE s.id = :id GROUP BY s.version")
 })
 public class Sandwich implements Serializable {
 
     private static final long serialVersionUID = 1L;
     private final static String SANDWICH_CUSTOM = "CUSTOM";
     private final static String SANDWICH_SIZE_UNDEFINED = "UNDEFINED";
-    private final static String SANDWICH_SIZE_0 = "PETIT";
-    private final static String SANDWICH_SIZE_1 = "MOYEN";
-    private final static String SANDWICH_SIZE_2 = "GRAND";
-    private final static String SANDWICH_SIZE_3 = "OGRE";
 
     @Id
     private String id;
 
+    @Version
+    private Long version;
+
     private String name;
 
     private String description;
@@ -35,6 +44,9 @@ public class Sandwich implements Serializable {
 
     private double price;
 
+    // Only set on the frozen copies referenced by the orders, null for the catalog
+    private String fingerprint;
+
     @ManyToMany
     @JsonManagedReference
     List<Ingredient> ingredientsList;
@@ -87,7 +99,7 @@ public class Sandwich implements Serializable {
     }
 
     /**
-     * Constructor that copies a Sandwich but changes the id
+     * Constructor that copies a Sandwich without its id
      *
      * @param sandwich The sandwich to copy
      */
@@ -96,8 +108,7 @@ public class Sandwich implements Serializable {
         this.name = sandwich.getName();
         this.size = sandwich.getSize();
         this.description = sandwich.getDescription();
-        this.ingredientsList = new ArrayList<>();
-        this.ingredientsList = sandwich.getIngredientsList();
+        this.ingredientsList = new ArrayList<>(sandwich.getIngredientsList());
     }
 
     /**
@@ -112,55 +123,12 @@ public class Sandwich implements Serializable {
         this.name = name;
         this.description = description;
 
-        switch (this.size) {
-            case (SANDWICH_SIZE_1):
-                // If we switch on a one with 7 ingredients
-                if (ingredientsList.size() == 8 && size.equals(SANDWICH_SIZE_0))
-                    ingredientsList.remove(ingredientsList.size() - 1);
-
-                break;
-
-            case (SANDWICH_SIZE_2):
-                // If we switch on a one with 7 ingredients
-                if (ingredientsList.size() == 8 && size.equals(SANDWICH_SIZE_0)) {
-                    ingredientsList.remove(ingredientsList.size() - 1);
-                    // If we switch on a one with 7 ingredients
-                } else if (ingredientsList.size() == 9 && size.equals(SANDWICH_SIZE_0)) {
-                    ingredientsList.remove(ingredientsList.size() - 1);
-                    ingredientsList.remove(ingredientsList.size() - 1);
-                    // If we switch on a one with 8 ingredients
-                } else if (ingredientsList.size() == 9 && size.equals(SANDWICH_SIZE_1)) {
-                    ingredientsList.remove(ingredientsList.size() - 1);
-                }
-
-                break;
-
-            case (SANDWICH_SIZE_3):
-                // If we switch on a one with 7 ingredients
-                if (ingredientsList.size() == 8 && size.equals(SANDWICH_SIZE_0)) {
-                    ingredientsList.remove(ingredientsList.size() - 1);
-                    // If we switch on a one with 7 ingredients
-                } else if (ingredientsList.size() == 9 && size.equals(SANDWICH_SIZE_0)) {
-                    ingredientsList.remove(ingredientsList.size() - 1);
-                    ingredientsList.remove(ingredientsList.size() - 1);
-                    // If we switch on a one with 7 ingredients
-                } else if (ingredientsList.size() == 10 && size.equals(SANDWICH_SIZE_0)) {
-                    ingredientsList.remove(ingredientsList.size() - 1);
-                    ingredientsList.remove(ingredientsList.size() - 1);
-                    ingredientsList.remove(ingredientsList.size() - 1);
-                    // If we switch on a one with 8 ingredients
-                } else if (ingredientsList.size() == 9 && size.equals(SANDWICH_SIZE_1)) {
-                    ingredientsList.remove(ingredientsList.size() - 1);
-                    // If we switch on a one with 8 ingredients
-                } else if (ingredientsList.size() == 10 && size.equals(SANDWICH_SIZE_1)) {
-                    ingredientsList.remove(ingredientsList.size() - 1);
-                    ingredientsList.remove(ingredientsList.size() - 1);
-                    // If we switch on a one with 9 ingredients
-                } else if (ingredientsList.size() == 10 && size.equals(SANDWICH_SIZE_2)) {
-                    ingredientsList.remove(ingredientsList.size() - 1);
-                }
-
-                break;
+        // Going to a smaller size drops the last ingredients
+        SandwichSize sandwichSize = SandwichSize.of(size);
+        if (sandwichSize != null) {
+            int max = CompositionRules.getDefault().maxIngredients(sandwichSize);
+            if (ingredientsList.size() > max)
+                ingredientsList.subList(max, ingredientsList.size()).clear();
         }
 
         this.size = size;
@@ -169,6 +137,56 @@ public class Sandwich implements Serializable {
         return this;
     }
 
+    /**
+     * Method that computes the content hash of the sandwich : its size, name, ingredients and price.
+     * Two orders of the same sandwich at the same price share the same fingerprint.
+     *
+     * @return 32 hexadecimal characters
+     */
+    public String fingerprint() {
+        String[] ids = new String[ingredientsList.size()];
+        for (int i = 0; i < ids.length; i++)
+            ids[i] = ingredientsList.get(i).getId();
+        Arrays.sort(ids);
+
+        StringBuilder content = new StringBuilder()
+                .append(size).append('|')
+                .append(name).append('|')
+                .append(priceCents()).append('|');
+        for (String id : ids)
+            content.append(id).append(',');
+
+        try {
+            byte[] hash = MessageDigest.getInstance("SHA-256").digest(content.toString().getBytes(StandardCharsets.UTF_8));
+            StringBuilder res = new StringBuilder();
+            for (int i = 0; i < 16; i++)
+                res.append(String.format("%02x", hash[i]));
+
+            return res.toString();
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+
+    /**
+     * Method that turns the sandwich into an immutable composition identified by its fingerprint
+     *
+     * @param fingerprint of the sandwich
+     */
+    public void freeze(String fingerprint) {
+        this.id = fingerprint;
+        this.fingerprint = fingerprint;
+    }
+
+    /**
+     * Method that tells you if the sandwich is a composition ordered (and not a sandwich of the catalog)
+     *
+     * @return boolean
+     */
+    public boolean isComposition() {
+        return fingerprint != null;
+    }
+
     /**
      * Method that tells you if the size exists
      *
@@ -176,12 +194,7 @@ public class Sandwich implements Serializable {
      * @return boolean
      */
     public static boolean isSizeOk(String size) {
-        return (
-            size.equals(SANDWICH_SIZE_0) ||
-            size.equals(SANDWICH_SIZE_1) ||
-            size.equals(SANDWICH_SIZE_2) ||
-            size.equals(SANDWICH_SIZE_3)
-        );
+        return SandwichSize.of(size) != null;
     }
 
     @Override
@@ -222,85 +235,39 @@ public class Sandwich implements Serializable {
 
     /**
      * Helper function that validates the composition of a sandwich
+     * against the rules of composition-rules.properties
      *
      * @return if it's valid
      */
     public boolean validate() {
-        boolean salad =    getIngredient("Salade") != null;
-        boolean meat =     getIngredient("Viande") != null;
-        boolean coldMeat = getIngredient("Charcuterie") != null;
-        boolean cheese =   getIngredient("Fromage") != null;
-        boolean sauce =    getIngredient("Sauce") != null;
-        boolean crudite =  getIngredient("Crudité") != null;
-        boolean bread =    getIngredient("Pain") != null;
-
-        if (salad && meat && coldMeat && cheese && sauce && crudite && bread) {
-            switch (this.size) {
-                case (SANDWICH_SIZE_0):
-                    if (ingredientsList.size() == 7)
-                        return true;
-                    break;
-                case (SANDWICH_SIZE_1):
-                    if (ingredientsList.size() <= 8)
-                        return true;
-                    break;
-                case (SANDWICH_SIZE_2):
-                    if (ingredientsList.size() <= 9)
-                        return true;
-                    break;
-                case (SANDWICH_SIZE_3):
-                    if (ingredientsList.size() <= 10)
-                        return true;
-                    break;
-            }
-        }
-
-        return false;
+        return CompositionRules.getDefault().validate(SandwichSize.of(size), ingredientsList);
     }
 
     /**
      * Method that give the price of a sandwich
      */
     public void calculatePrice() {
-        double price = 0;
-
-        switch (size) {
-            case (SANDWICH_SIZE_1):
-                price += 1.0;
-                break;
-            case (SANDWICH_SIZE_2):
-                price += 1.5;
-                break;
-            case (SANDWICH_SIZE_3):
-                price += 2.0;
-                break;
-        }
+        SandwichSize sandwichSize = SandwichSize.of(size);
+        long cents = (sandwichSize == null) ? 0 : sandwichSize.getSurchargeCents();
 
-        for (Ingredient ingredient : ingredientsList)
-            price += ingredient.getPrice();
+        for (int i = 0; i < ingredientsList.size(); i++)
+            cents += Price.toCents(ingredientsList.get(i).getPrice());
 
-        this.price = price;
+        this.price = Price.toEuros(cents);
     }
 
     /**
-     * - Getter and Setter functions -
+     * Helper method
+     *
+     * @return the price in cents
      */
-
-    public static String getSandwichSize0() {
-        return SANDWICH_SIZE_0;
+    public long priceCents() {
+        return Price.toCents(price);
     }
 
-    public static String getSandwichSize1() {
-        return SANDWICH_SIZE_1;
-    }
-
-    public static String getSandwichSize2() {
-        return SANDWICH_SIZE_2;
-    }
-
-    public static String getSandwichSize3() {
-        return SANDWICH_SIZE_3;
-    }
+    /**
+     * - Getter and Setter functions -
+     */
 
     public String getSize() {
         return size;
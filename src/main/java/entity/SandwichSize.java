@@ -0,0 +1,47 @@
+package entity;
+
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * The sizes of sandwich : adding one here is enough for the validation, the resizing and the price
+ */
+public enum SandwichSize {
+    PETIT(7, 0),
+    MOYEN(8, 100),
+    GRAND(9, 150),
+    OGRE(10, 200);
+
+    private final static Map<String, SandwichSize> BY_NAME = new HashMap<>();
+
+    static {
+        for (SandwichSize size : values())
+            BY_NAME.put(size.name(), size);
+    }
+
+    private final int maxIngredients;
+    private final long surchargeCents;
+
+    SandwichSize(int maxIngredients, long surchargeCents) {
+        this.maxIngredients = maxIngredients;
+        this.surchargeCents = surchargeCents;
+    }
+
+    /**
+     * Method that returns the size for a name given
+     *
+     * @param name of the size
+     * @return SandwichSize or null if the size doesn't exist
+     */
+    public static SandwichSize of(String name) {
+        return (name == null) ? null : BY_NAME.get(name);
+    }
+
+    public int getMaxIngredients() {
+        return maxIngredients;
+    }
+
+    public long getSurchargeCents() {
+        return surchargeCents;
+    }
+}
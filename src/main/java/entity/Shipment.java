@@ -19,7 +19,12 @@ import java.util.TimeZone;
 @Entity
 @XmlRootElement
 @NamedQueries({
-        @NamedQuery(name = "Shipment.findAll", query = "SELECT s FROM Shipment s ORDER BY s.dateTime DESC"),
+        @NamedQuery(name = "Shipment.findAll", query = "SELECT s FROM Shipment s LEFT JOIN FETCH s.customer ORDER BY s.dateTime DESC"),
+        @NamedQuery(name = "Shipment.fetchSandwiches", query = "SELECT DISTINCT s FROM Shipment s LEFT JOIN FETCH s.sandwiches WHERE s IN :orders"),
+        @NamedQuery(name = "Shipment.findVersions", query = "SELECT s.version, a.email, a.version, COALESCE(SUM(sw.version), 0), COALESCE(SUM(i.version), 0), COALESCE(SUM(c.version), 0) "
+                + "FROM Shipment s LEFT JOIN s.customer a LEFT JOIN s.sandwiches sw LEFT JOIN sw.ingredientsList i LEFT JOIN i.category c "
+                + "WHERE s.id = :id GROUP BY s.version, a.email, a.version"),
+        @NamedQuery(name = "Shipment.findStatus", query = "SELECT s.status FROM Shipment s WHERE s.id = :id"),
 })
 public class Shipment implements Serializable {
 // NOT ORDER because JAVA is so stupid it makes a SQL error with the name Order ... thanks Oracle
@@ -28,13 +33,23 @@ public class Shipment implements Serializable {
 
     private String dateTime;
 
+    // Milliseconds since the epoch, the order of the history of a customer whatever the generator of the IDs
+    // Not written in the JSON (no getter), 0 for the orders created before it was stored
+    private long createdAt;
+
     private int status;
 
-    private double price;
+    // In cents, kept up to date on each change of the sandwiches
+    private long priceCents;
 
     @Id
     private String id;
 
+    // Incremented by each update of the order or of its list of sandwiches, null until it's stored
+    // Not written in the JSON (no getter), the ETags are built from it by a query of their own
+    @Version
+    private Long version;
+
     @ManyToOne
     @JsonManagedReference
     private Account customer;
@@ -53,20 +68,21 @@ public class Shipment implements Serializable {
     public final static int READY = 4;
     public final static int DELIVERED = 5;
 
+    // The price of the most expensive sandwich in cents, -1 when it has to be computed again
+    @Transient
+    private long higherPriceCents = -1;
+
     public Shipment() {}
 
     public Shipment(Account customer, String dateTime, List<Sandwich> sandwiches) {
-        this.price = 0;
+        this.priceCents = 0;
         this.customer = customer;
         this.dateTime = dateTime;
         this.sandwiches = sandwiches;
         this.status = CREATED;
 
-        if (!sandwiches.isEmpty()) {
-            for (Sandwich sandwich : sandwiches) {
-                this.price += sandwich.getPrice();
-            }
-        }
+        for (Sandwich sandwich : sandwiches)
+            this.priceCents += sandwich.priceCents();
     }
 
     /**
@@ -76,7 +92,10 @@ public class Shipment implements Serializable {
      */
     public void addSandwich(Sandwich sandwich) {
         sandwiches.add(sandwich);
-        price += sandwich.getPrice();
+        priceCents += sandwich.priceCents();
+
+        if (higherPriceCents >= 0 && sandwich.priceCents() > higherPriceCents)
+            higherPriceCents = sandwich.priceCents();
     }
 
     /**
@@ -89,7 +108,11 @@ public class Shipment implements Serializable {
         for (Sandwich sandwich : sandwiches) {
             if (sandwich.getId().equals(id)) {
                 sandwiches.remove(sandwich);
-                price -= sandwich.getPrice();
+                priceCents -= sandwich.priceCents();
+
+                if (sandwich.priceCents() == higherPriceCents)
+                    higherPriceCents = -1;
+
                 return true;
             }
         }
@@ -117,22 +140,32 @@ public class Shipment implements Serializable {
      * @return the higher price
      */
     public double getHigherPrice() {
-        double price = 0;
-        for (Sandwich sandwich : sandwiches)
-            if (sandwich.getPrice() > price)
-                price = sandwich.getPrice();
+        return Price.toEuros(higherPriceCents());
+    }
 
-        return price;
+    /**
+     * Method to get the higher price in our sandwiches, only computed again if this sandwich has been removed
+     *
+     * @return the higher price in cents
+     */
+    private long higherPriceCents() {
+        if (higherPriceCents < 0) {
+            long cents = 0;
+            for (Sandwich sandwich : sandwiches)
+                if (sandwich.priceCents() > cents)
+                    cents = sandwich.priceCents();
+
+            higherPriceCents = cents;
+        }
+
+        return higherPriceCents;
     }
 
     /**
      * Method to apply discount on the order
      */
     public void applyDiscount() {
-        if (price - getHigherPrice() < 0)
-            price = 0;
-        else
-            price -= getHigherPrice();
+        priceCents = Math.max(0, priceCents - higherPriceCents());
     }
 
     /**
@@ -195,6 +228,10 @@ public class Shipment implements Serializable {
         this.dateTime = formatter.format(dateTime);
     }
 
+    public void setCreatedAt(long createdAt) {
+        this.createdAt = createdAt;
+    }
+
     public String getId() {
         return id;
     }
@@ -217,6 +254,7 @@ public class Shipment implements Serializable {
 
     public void setSandwiches(List<Sandwich> sandwiches) {
         this.sandwiches = new ArrayList<>(sandwiches);
+        this.higherPriceCents = -1;
     }
 
     public int getStatus() {
@@ -228,11 +266,11 @@ public class Shipment implements Serializable {
     }
 
     public double getPrice() {
-        return price;
+        return Price.toEuros(priceCents);
     }
 
     public void setPrice(double price) {
-        this.price = price;
+        this.priceCents = Price.toCents(price);
     }
 
 }
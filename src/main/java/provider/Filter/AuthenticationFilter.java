@@ -3,6 +3,7 @@ package provider.Filter;
 import control.KeyGenerator;
 import io.jsonwebtoken.Claims;
 import io.jsonwebtoken.Jws;
+import io.jsonwebtoken.JwtException;
 import io.jsonwebtoken.Jwts;
 import provider.AuthenticatedAccount;
 import provider.Secured;
@@ -42,11 +43,7 @@ public class AuthenticationFilter implements ContainerRequestFilter {
 
         try {
 
-            Key key = new KeyGenerator().generateKey();
-
-            Jws<Claims> jwts = Jwts.parser().setSigningKey(key).parseClaimsJws(token);
-
-            String email = jwts.getBody().getSubject();
+            String email = subject(token);
 
             accountAuthenticatedEvent.fire(email);
 
@@ -84,4 +81,17 @@ public class AuthenticationFilter implements ContainerRequestFilter {
             requestContext.abortWith(Response.status(Response.Status.UNAUTHORIZED).build());
         }
     }
+
+    /**
+     * Method that checks the signature and the expiration of a token
+     * @param token the JSON Web Token
+     * @return the email of the account of the token
+     * @throws JwtException if the token isn't valid
+     */
+    public static String subject(String token) throws JwtException {
+        Key key = new KeyGenerator().generateKey();
+        Jws<Claims> jwts = Jwts.parser().setSigningKey(key).parseClaimsJws(token);
+
+        return jwts.getBody().getSubject();
+    }
 }
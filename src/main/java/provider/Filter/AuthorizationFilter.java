@@ -7,7 +7,6 @@ import provider.Secured;
 
 import javax.annotation.Priority;
 import javax.inject.Inject;
-import javax.ws.rs.ForbiddenException;
 import javax.ws.rs.Priorities;
 import javax.ws.rs.container.ContainerRequestContext;
 import javax.ws.rs.container.ContainerRequestFilter;
@@ -17,6 +16,7 @@ import javax.ws.rs.core.Response;
 import javax.ws.rs.ext.Provider;
 import java.io.IOException;
 import java.lang.reflect.AnnotatedElement;
+import java.lang.reflect.Method;
 import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.List;
@@ -36,23 +36,33 @@ public class AuthorizationFilter implements ContainerRequestFilter {
     @Override
     public void filter(ContainerRequestContext requestContext) throws IOException {
 
-        // Get the resources that match with the requested URL
-        List<AccountRole> classRoles = extractRoles(resourceInfo.getResourceClass());
-        List<AccountRole> methodRoles = extractRoles(resourceInfo.getResourceMethod());
+        boolean allowed;
 
         try {
-
-            if (methodRoles.isEmpty())
-                checkPermissions(classRoles);
-            else
-                checkPermissions(methodRoles);
-
+            allowed = isAllowed(resourceInfo.getResourceClass(), resourceInfo.getResourceMethod(), accountLogged.getRole());
         } catch (Exception e) {
+            allowed = false;
+        }
+
+        if (!allowed)
             requestContext.abortWith( Response.status(Response.Status.FORBIDDEN)
                     .type("text/plain")
                     .entity("You are not allowed to do this !")
                     .build() );
-        }
+    }
+
+    /**
+     * Method that checks a role against the roles of the resource method, or of its class if the method has none
+     * @param resourceClass class of the resource
+     * @param resourceMethod method of the resource
+     * @param role of the account logged
+     * @return if the role is allowed
+     */
+    public static boolean isAllowed(Class<?> resourceClass, Method resourceMethod, AccountRole role) {
+        List<AccountRole> methodRoles = extractRoles(resourceMethod);
+        List<AccountRole> allowedRoles = methodRoles.isEmpty() ? extractRoles(resourceClass) : methodRoles;
+
+        return allowedRoles.contains(role);
     }
 
     /**
@@ -60,7 +70,7 @@ public class AuthorizationFilter implements ContainerRequestFilter {
      * @param annotatedElement
      * @return
      */
-    private List<AccountRole> extractRoles(AnnotatedElement annotatedElement) {
+    private static List<AccountRole> extractRoles(AnnotatedElement annotatedElement) {
         if (annotatedElement == null)
             return new ArrayList<>();
 
@@ -71,9 +81,4 @@ public class AuthorizationFilter implements ContainerRequestFilter {
         return Arrays.asList(secured.value());
     }
 
-    private void checkPermissions(List<AccountRole> allowedRoles) throws Exception {
-        if (!allowedRoles.contains(accountLogged.getRole())) {
-            throw new ForbiddenException(accountLogged.getRole()+ " is not allowed to do this action");
-        }
-    }
 }
@@ -0,0 +1,182 @@
+package provider.Filter;
+
+import javax.annotation.Priority;
+import javax.ws.rs.Priorities;
+import javax.ws.rs.WebApplicationException;
+import javax.ws.rs.core.Context;
+import javax.ws.rs.core.HttpHeaders;
+import javax.ws.rs.core.MediaType;
+import javax.ws.rs.core.MultivaluedMap;
+import javax.ws.rs.ext.Provider;
+import javax.ws.rs.ext.WriterInterceptor;
+import javax.ws.rs.ext.WriterInterceptorContext;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.util.List;
+
+/**
+ * Compresses with GZIP the entities bigger than lebonsandwich.compression-threshold (1024 bytes) for the clients
+ * that accept it, at the level lebonsandwich.compression-level (1, the most of the gain for the least CPU, see EncodingBenchmark)
+ * The smaller ones are sent as they are, the compression would cost more than it saves
+ */
+@Provider
+@Priority(Priorities.ENTITY_CODER)
+public class CompressionInterceptor implements WriterInterceptor {
+
+    public final static String THRESHOLD_PROPERTY = "lebonsandwich.compression-threshold";
+    public final static String LEVEL_PROPERTY = "lebonsandwich.compression-level";
+    private final static int THRESHOLD = Integer.getInteger(THRESHOLD_PROPERTY, 1024);
+    private final static int LEVEL = Integer.getInteger(LEVEL_PROPERTY, 1);
+    private final static String GZIP = "gzip";
+
+    @Context
+    HttpHeaders httpHeaders;
+
+    @Override
+    public void aroundWriteTo(WriterInterceptorContext context) throws IOException, WebApplicationException {
+        if (!isCompressible(context.getMediaType()) || context.getHeaders().containsKey(HttpHeaders.CONTENT_ENCODING)) {
+            context.proceed();
+            return;
+        }
+
+        // The body depends on it, for the caches
+        context.getHeaders().add(HttpHeaders.VARY, HttpHeaders.ACCEPT_ENCODING);
+        if (!acceptsGzip(httpHeaders.getRequestHeader(HttpHeaders.ACCEPT_ENCODING))) {
+            context.proceed();
+            return;
+        }
+
+        ThresholdOutputStream out = new ThresholdOutputStream(context.getOutputStream(), context.getHeaders());
+        context.setOutputStream(out);
+        try {
+            context.proceed();
+            out.finish();
+        } finally {
+            out.release();
+        }
+    }
+
+    /**
+     * Method that tells if an Accept-Encoding header accepts GZIP
+     * Every coding is read : an explicit gzip decides over *, e.g. "*;q=1, gzip;q=0" refuses it
+     *
+     * @param acceptEncoding values of the header, null if absent
+     * @return true if gzip is listed without q=0, or else * is
+     */
+    static boolean acceptsGzip(List<String> acceptEncoding) {
+        if (acceptEncoding == null)
+            return false;
+
+        Boolean gzip = null;
+        Boolean any = null;
+        for (String header : acceptEncoding) {
+            for (String coding : header.split(",")) {
+                String[] parts = coding.split(";");
+                String name = parts[0].trim();
+                if (name.equalsIgnoreCase(GZIP))
+                    gzip = isAccepted(parts);
+                else if (name.equals("*"))
+                    any = isAccepted(parts);
+            }
+        }
+
+        return (gzip != null) ? gzip : (any != null && any);
+    }
+
+    // A coding is refused by q=0, or by a weight that can't be read
+    private static boolean isAccepted(String[] parts) {
+        boolean refused = false;
+        for (int i = 1; i < parts.length; i++) {
+            String parameter = parts[i].trim();
+            if (parameter.startsWith("q=")) {
+                try {
+                    refused = Double.parseDouble(parameter.substring(2)) == 0;
+                } catch (NumberFormatException e) {
+                    refused = true;
+                }
+            }
+        }
+        return !refused;
+    }
+
+    // Already compressed (PDF, images) or sent as it comes (server-sent events)
+    private static boolean isCompressible(MediaType mediaType) {
+        if (mediaType == null)
+            return true;
+
+        String type = mediaType.getType() + "/" + mediaType.getSubtype();
+        return !mediaType.getType().equals("image")
+                && !type.equals("application/pdf")
+                && !type.equals("application/zip")
+                && !type.equals("application/gzip")
+                && !type.equals("text/event-stream");
+    }
+
+    /**
+     * Keeps the first bytes until the threshold, then switches to GZIP
+     */
+    private static class ThresholdOutputStream extends OutputStream {
+
+        private final OutputStream out;
+        private final MultivaluedMap<String, Object> headers;
+        private byte[] buffer = new byte[THRESHOLD];
+        private int count;
+        private GzipOutputStream gzip;
+
+        private ThresholdOutputStream(OutputStream out, MultivaluedMap<String, Object> headers) {
+            this.out = out;
+            this.headers = headers;
+        }
+
+        @Override
+        public void write(int b) throws IOException {
+            write(new byte[]{(byte) b}, 0, 1);
+        }
+
+        @Override
+        public void write(byte[] b, int off, int len) throws IOException {
+            if (gzip == null && count + len <= buffer.length) {
+                System.arraycopy(b, off, buffer, count, len);
+                count += len;
+                return;
+            }
+
+            if (gzip == null) {
+                // Before the first byte reaches the response, while the headers can change
+                headers.putSingle(HttpHeaders.CONTENT_ENCODING, GZIP);
+                headers.remove(HttpHeaders.CONTENT_LENGTH);
+                Object etag = headers.getFirst(HttpHeaders.ETAG);
+                if (etag != null)
+                    headers.putSingle(HttpHeaders.ETAG, ConditionalFilter.gzipTag(etag));
+                gzip = new GzipOutputStream(out, LEVEL);
+                gzip.write(buffer, 0, count);
+                buffer = null;
+            }
+            gzip.write(b, off, len);
+        }
+
+        @Override
+        public void flush() throws IOException {
+            // Nothing is sent before the threshold is reached or the entity is written
+            if (gzip != null)
+                gzip.flush();
+        }
+
+        private void finish() throws IOException {
+            if (gzip != null)
+                gzip.finish();
+            else
+                out.write(buffer, 0, count);
+        }
+
+        private void release() {
+            if (gzip != null)
+                gzip.release();
+        }
+
+        @Override
+        public void close() throws IOException {
+            // The response is closed by the container after finish
+        }
+    }
+}
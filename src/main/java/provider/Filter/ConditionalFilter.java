@@ -0,0 +1,97 @@
+package provider.Filter;
+
+import javax.ws.rs.container.ContainerRequestContext;
+import javax.ws.rs.container.ContainerRequestFilter;
+import javax.ws.rs.container.ContainerResponseContext;
+import javax.ws.rs.container.ContainerResponseFilter;
+import javax.ws.rs.core.EntityTag;
+import javax.ws.rs.core.HttpHeaders;
+import javax.ws.rs.core.Response;
+import javax.ws.rs.core.UriInfo;
+import javax.ws.rs.ext.Provider;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.List;
+
+/**
+ * Conditional GETs : the resources build a strong ETag from the versions of what they return
+ * (see tag) and answer If-None-Match with 304 through Request.evaluatePreconditions, before loading it
+ * The body compressed by CompressionInterceptor gets its own ETag, "...-gzip", which this filter brings back to
+ * the ETag of the resource in If-None-Match, so both match
+ */
+@Provider
+public class ConditionalFilter implements ContainerRequestFilter, ContainerResponseFilter {
+
+    private final static String GZIP_SUFFIX = "-gzip";
+    private final static String IF_NONE_MATCH = "If-None-Match";
+    private final static String PROPERTY = ConditionalFilter.class.getName();
+
+    /**
+     * Method that builds the strong ETag of a representation
+     * The URI of the request is part of it : the links depend on the base URI, the properties on the query
+     *
+     * @param uriInfo  of the request
+     * @param versions what the representation is made of, e.g. the versions of the entities
+     * @return EntityTag
+     */
+    public static EntityTag tag(UriInfo uriInfo, Object... versions) {
+        StringBuilder content = new StringBuilder(uriInfo.getRequestUri().toString());
+        for (Object version : versions)
+            content.append('|').append(version);
+
+        try {
+            byte[] hash = MessageDigest.getInstance("SHA-256").digest(content.toString().getBytes(StandardCharsets.UTF_8));
+            StringBuilder res = new StringBuilder();
+            for (int i = 0; i < 16; i++)
+                res.append(String.format("%02x", hash[i]));
+
+            return new EntityTag(res.toString());
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+
+    /**
+     * Method that gives the ETag of the compressed body, a strong ETag is only valid for the same bytes
+     *
+     * @param etag the value of the ETag header, an EntityTag or a String
+     * @return the ETag of the compressed body, the same if it's weak
+     */
+    static Object gzipTag(Object etag) {
+        EntityTag tag = (etag instanceof EntityTag) ? (EntityTag) etag : EntityTag.valueOf(etag.toString());
+        return tag.isWeak() ? etag : new EntityTag(tag.getValue() + GZIP_SUFFIX);
+    }
+
+    @Override
+    public void filter(ContainerRequestContext requestContext) throws IOException {
+        List<String> values = requestContext.getHeaders().get(IF_NONE_MATCH);
+        if (values == null)
+            return;
+
+        requestContext.setProperty(PROPERTY, String.join(",", values));
+        for (int i = 0; i < values.size(); i++)
+            values.set(i, values.get(i).replace(GZIP_SUFFIX + "\"", "\""));
+    }
+
+    @Override
+    public void filter(ContainerRequestContext requestContext, ContainerResponseContext responseContext) throws IOException {
+        Object etag = responseContext.getHeaders().getFirst(HttpHeaders.ETAG);
+        if (etag == null)
+            return;
+
+        // The client has to ask again each time, it's cheap with If-None-Match
+        if (!responseContext.getHeaders().containsKey(HttpHeaders.CACHE_CONTROL))
+            responseContext.getHeaders().putSingle(HttpHeaders.CACHE_CONTROL,
+                    (requestContext.getHeaderString(HttpHeaders.AUTHORIZATION) == null) ? "no-cache" : "private, no-cache");
+
+        // The 304 confirms the ETag the client has, the one of the compressed body if it's this one
+        String ifNoneMatch = (String) requestContext.getProperty(PROPERTY);
+        if (responseContext.getStatus() == Response.Status.NOT_MODIFIED.getStatusCode() && ifNoneMatch != null) {
+            Object gzipTag = gzipTag(etag);
+            if (ifNoneMatch.contains(gzipTag.toString()))
+                responseContext.getHeaders().putSingle(HttpHeaders.ETAG, gzipTag);
+        }
+    }
+}
@@ -10,7 +10,7 @@ import java.io.IOException;
 public class CorsFilter implements ContainerRequestFilter, ContainerResponseFilter {
 
     private final static String METHODS = "GET,POST,PUT,DELETE,OPTIONS,HEAD";
-    private final static String HEADERS = "origin,content-type,accept,authorization";
+    private final static String HEADERS = "origin,content-type,accept,authorization,idempotency-key,if-none-match";
     private final static int TIME = 10 * 60;
 
     @Override
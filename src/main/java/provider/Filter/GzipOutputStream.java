@@ -0,0 +1,115 @@
+package provider.Filter;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.zip.CRC32;
+import java.util.zip.Deflater;
+
+/**
+ * GZIP stream whose Deflater (native memory of zlib) and buffer are reused from a pool instead of created
+ * for each response, see java.util.zip.GZIPOutputStream for the format
+ */
+public class GzipOutputStream extends OutputStream {
+
+    private final static int POOL_SIZE = 2 * Runtime.getRuntime().availableProcessors();
+    private final static ArrayBlockingQueue<Resources> POOL = new ArrayBlockingQueue<>(POOL_SIZE);
+    private final static byte[] HEADER = {0x1f, (byte) 0x8b, Deflater.DEFLATED, 0, 0, 0, 0, 0, 0, 0};
+
+    private final OutputStream out;
+    private Resources resources;
+
+    /**
+     * @param out   where the compressed bytes go, not closed by finish
+     * @param level of the compression, 1 (fast) to 9 (small)
+     */
+    public GzipOutputStream(OutputStream out, int level) throws IOException {
+        this.out = out;
+        resources = POOL.poll();
+        if (resources == null)
+            resources = new Resources();
+        resources.deflater.setLevel(level);
+        out.write(HEADER);
+    }
+
+    @Override
+    public void write(int b) throws IOException {
+        write(new byte[]{(byte) b}, 0, 1);
+    }
+
+    @Override
+    public void write(byte[] b, int off, int len) throws IOException {
+        if (resources == null)
+            throw new IOException("Stream finished");
+
+        resources.crc.update(b, off, len);
+        resources.deflater.setInput(b, off, len);
+        while (!resources.deflater.needsInput())
+            deflate();
+    }
+
+    @Override
+    public void flush() throws IOException {
+        out.flush();
+    }
+
+    /**
+     * Method that writes what is left and the trailer, and gives back the Deflater to the pool
+     */
+    public void finish() throws IOException {
+        if (resources == null)
+            return;
+
+        try {
+            resources.deflater.finish();
+            while (!resources.deflater.finished())
+                deflate();
+
+            byte[] trailer = new byte[8];
+            writeInt(trailer, 0, (int) resources.crc.getValue());
+            writeInt(trailer, 4, (int) resources.deflater.getBytesRead());
+            out.write(trailer);
+        } finally {
+            release();
+        }
+    }
+
+    /**
+     * Method that gives back the Deflater to the pool without finishing, when the response failed
+     */
+    public void release() {
+        if (resources == null)
+            return;
+
+        resources.deflater.reset();
+        resources.crc.reset();
+        if (!POOL.offer(resources))
+            resources.deflater.end();
+        resources = null;
+    }
+
+    @Override
+    public void close() throws IOException {
+        finish();
+        out.close();
+    }
+
+    private void deflate() throws IOException {
+        int length = resources.deflater.deflate(resources.buffer, 0, resources.buffer.length);
+        if (length > 0)
+            out.write(resources.buffer, 0, length);
+    }
+
+    private static void writeInt(byte[] bytes, int offset, int value) {
+        bytes[offset] = (byte) value;
+        bytes[offset + 1] = (byte) (value >> 8);
+        bytes[offset + 2] = (byte) (value >> 16);
+        bytes[offset + 3] = (byte) (value >> 24);
+    }
+
+    private static class Resources {
+        private final Deflater deflater = new Deflater(Deflater.DEFAULT_COMPRESSION, true);
+        private final CRC32 crc = new CRC32();
+        private final byte[] buffer = new byte[8192];
+    }
+}
@@ -0,0 +1,242 @@
+package provider.Filter;
+
+import control.IdempotencyStore;
+import provider.Idempotent;
+
+import javax.annotation.Priority;
+import javax.inject.Inject;
+import javax.servlet.http.HttpServletRequest;
+import javax.ws.rs.Priorities;
+import javax.ws.rs.WebApplicationException;
+import javax.ws.rs.container.ContainerRequestContext;
+import javax.ws.rs.container.ContainerRequestFilter;
+import javax.ws.rs.container.ContainerResponseContext;
+import javax.ws.rs.container.ContainerResponseFilter;
+import javax.ws.rs.core.Context;
+import javax.ws.rs.core.HttpHeaders;
+import javax.ws.rs.core.MediaType;
+import javax.ws.rs.core.MultivaluedHashMap;
+import javax.ws.rs.core.MultivaluedMap;
+import javax.ws.rs.core.Response;
+import javax.ws.rs.ext.Provider;
+import javax.ws.rs.ext.WriterInterceptor;
+import javax.ws.rs.ext.WriterInterceptorContext;
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.security.Principal;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+
+/**
+ * Replays the response of a request sent again with the same Idempotency-Key, the key being bound to the body
+ * of the first request : another body with the same key gets 422
+ * The response is kept as it was written (bytes and headers), the entity itself may have changed since
+ */
+@Idempotent
+@Provider
+@Priority(Priorities.USER)
+public class IdempotencyFilter implements ContainerRequestFilter, ContainerResponseFilter, WriterInterceptor {
+
+    public final static String HEADER = "Idempotency-Key";
+    private final static String PROPERTY = "provider.idempotency.key";
+    private final static String STATUS_PROPERTY = "provider.idempotency.status";
+    private final static String HEADERS_PROPERTY = "provider.idempotency.headers";
+    private final static int MAX_KEY_LENGTH = 255;
+    private final static int UNPROCESSABLE_ENTITY = 422;
+
+    @Inject
+    IdempotencyStore idempotencyStore;
+
+    @Context
+    HttpServletRequest servletRequest;
+
+    @Override
+    public void filter(ContainerRequestContext requestContext) throws IOException {
+        String key = requestContext.getHeaderString(HEADER);
+
+        if (key == null || key.isEmpty())
+            return;
+
+        if (key.length() > MAX_KEY_LENGTH) {
+            requestContext.abortWith(Response.status(Response.Status.BAD_REQUEST)
+                    .type("text/plain")
+                    .entity(HEADER + " is too long")
+                    .build());
+            return;
+        }
+
+        String scopedKey = scope(requestContext, key);
+        String requestHash = hash(requestContext);
+        IdempotencyStore.Entry entry = idempotencyStore.reserve(scopedKey, requestHash);
+
+        if (entry == null)
+            requestContext.setProperty(PROPERTY, scopedKey);
+        else if (!entry.matches(requestHash))
+            requestContext.abortWith(Response.status(UNPROCESSABLE_ENTITY)
+                    .type("text/plain")
+                    .entity("This " + HEADER + " has already been used with another request")
+                    .build());
+        else if (entry.isCompleted())
+            requestContext.abortWith(entry.toResponse());
+        else
+            requestContext.abortWith(Response.status(Response.Status.CONFLICT)
+                    .type("text/plain")
+                    .entity("A request with this " + HEADER + " is still being processed")
+                    .build());
+    }
+
+    @Override
+    public void filter(ContainerRequestContext requestContext, ContainerResponseContext responseContext) throws IOException {
+        String key = (String) requestContext.getProperty(PROPERTY);
+
+        if (key == null)
+            return;
+
+        // A server error is not an answer : the client may retry for real
+        if (responseContext.getStatus() >= 500) {
+            idempotencyStore.release(key);
+            return;
+        }
+
+        MultivaluedMap<String, String> headers = replayedHeaders(responseContext.getStringHeaders());
+        if (!responseContext.hasEntity()) {
+            idempotencyStore.complete(key, responseContext.getStatus(), null, null, headers);
+            return;
+        }
+
+        // Stored once written, by aroundWriteTo
+        requestContext.setProperty(STATUS_PROPERTY, responseContext.getStatus());
+        requestContext.setProperty(HEADERS_PROPERTY, headers);
+    }
+
+    @Override
+    @SuppressWarnings("unchecked")
+    public void aroundWriteTo(WriterInterceptorContext context) throws IOException, WebApplicationException {
+        String key = (String) context.getProperty(PROPERTY);
+        Integer status = (Integer) context.getProperty(STATUS_PROPERTY);
+
+        if (key == null || status == null) {
+            context.proceed();
+            return;
+        }
+
+        ByteArrayOutputStream copy = new ByteArrayOutputStream();
+        context.setOutputStream(new TeeOutputStream(context.getOutputStream(), copy));
+        try {
+            context.proceed();
+        } catch (IOException | RuntimeException e) {
+            idempotencyStore.release(key);
+            throw e;
+        }
+
+        idempotencyStore.complete(key, status, copy.toByteArray(), context.getMediaType(),
+                (MultivaluedMap<String, String>) context.getProperty(HEADERS_PROPERTY));
+    }
+
+    /**
+     * Helper function that binds a key to the account and the route, so that two customers never share a key
+     *
+     * @param requestContext the request
+     * @param key            the key sent by the client
+     * @return the scoped key
+     */
+    private String scope(ContainerRequestContext requestContext, String key) {
+        Principal principal = requestContext.getSecurityContext().getUserPrincipal();
+        String account = (principal == null) ? "" : principal.getName();
+
+        return account + ' ' + requestContext.getMethod() + ' ' + requestContext.getUriInfo().getPath() + ' ' + key;
+    }
+
+    /**
+     * Helper function that hashes the body of a request
+     * A form is read from the parameters of the servlet, where RESTEasy reads the @FormParam : its stream
+     * can't be consumed here. Any other body is read and put back
+     *
+     * @param requestContext the request
+     * @return SHA-256 in hexadecimal
+     */
+    private String hash(ContainerRequestContext requestContext) throws IOException {
+        MessageDigest digest;
+        try {
+            digest = MessageDigest.getInstance("SHA-256");
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException(e);
+        }
+
+        if (MediaType.APPLICATION_FORM_URLENCODED_TYPE.isCompatible(requestContext.getMediaType())) {
+            for (Map.Entry<String, String[]> parameter : new TreeMap<>(servletRequest.getParameterMap()).entrySet()) {
+                digest.update(parameter.getKey().getBytes(StandardCharsets.UTF_8));
+                for (String value : parameter.getValue()) {
+                    digest.update((byte) '=');
+                    digest.update(value.getBytes(StandardCharsets.UTF_8));
+                }
+                digest.update((byte) '&');
+            }
+        } else if (requestContext.hasEntity()) {
+            ByteArrayOutputStream body = new ByteArrayOutputStream();
+            InputStream in = requestContext.getEntityStream();
+            byte[] buffer = new byte[4096];
+            for (int n; (n = in.read(buffer)) > 0; )
+                body.write(buffer, 0, n);
+
+            digest.update(body.toByteArray());
+            requestContext.setEntityStream(new ByteArrayInputStream(body.toByteArray()));
+        }
+
+        StringBuilder res = new StringBuilder();
+        for (byte b : digest.digest())
+            res.append(String.format("%02x", b));
+        return res.toString();
+    }
+
+    // Set again when the response is written (and compressed) once more
+    private static MultivaluedMap<String, String> replayedHeaders(MultivaluedMap<String, String> headers) {
+        MultivaluedMap<String, String> res = new MultivaluedHashMap<>();
+        for (Map.Entry<String, List<String>> header : headers.entrySet()) {
+            String name = header.getKey();
+            if (!name.equalsIgnoreCase(HttpHeaders.CONTENT_TYPE) && !name.equalsIgnoreCase(HttpHeaders.CONTENT_LENGTH)
+                    && !name.equalsIgnoreCase(HttpHeaders.CONTENT_ENCODING) && !name.equalsIgnoreCase(HttpHeaders.VARY))
+                res.put(name, new ArrayList<>(header.getValue()));
+        }
+        return res;
+    }
+
+    /**
+     * Writes to the response and keeps a copy of the bytes
+     */
+    private static class TeeOutputStream extends OutputStream {
+
+        private final OutputStream out;
+        private final ByteArrayOutputStream copy;
+
+        private TeeOutputStream(OutputStream out, ByteArrayOutputStream copy) {
+            this.out = out;
+            this.copy = copy;
+        }
+
+        @Override
+        public void write(int b) throws IOException {
+            out.write(b);
+            copy.write(b);
+        }
+
+        @Override
+        public void write(byte[] b, int off, int len) throws IOException {
+            out.write(b, off, len);
+            copy.write(b, off, len);
+        }
+
+        @Override
+        public void flush() throws IOException {
+            out.flush();
+        }
+    }
+}
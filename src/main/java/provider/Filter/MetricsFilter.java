@@ -0,0 +1,148 @@
+package provider.Filter;
+
+import control.RequestMetrics;
+import control.StatementCounter;
+
+import javax.annotation.Priority;
+import javax.inject.Inject;
+import javax.ws.rs.HttpMethod;
+import javax.ws.rs.Path;
+import javax.ws.rs.WebApplicationException;
+import javax.ws.rs.container.ContainerRequestContext;
+import javax.ws.rs.container.ContainerRequestFilter;
+import javax.ws.rs.container.ContainerResponseContext;
+import javax.ws.rs.container.ContainerResponseFilter;
+import javax.ws.rs.container.ResourceInfo;
+import javax.ws.rs.core.Context;
+import javax.ws.rs.ext.Provider;
+import javax.ws.rs.ext.WriterInterceptor;
+import javax.ws.rs.ext.WriterInterceptorContext;
+import java.io.IOException;
+import java.lang.annotation.Annotation;
+import java.lang.reflect.Method;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Times every request to a resource method, up to the end of the writing of the entity if there is one,
+ * and counts its JDBC statements
+ */
+@Provider
+// Before the authentication (1000) so that the rejected requests are timed too
+@Priority(100)
+public class MetricsFilter implements ContainerRequestFilter, ContainerResponseFilter, WriterInterceptor {
+
+    private final static String TIMER = "provider.metrics.timer";
+    private final static String START = "provider.metrics.start";
+    private final static String STATUS = "provider.metrics.status";
+    private final static String COUNTS = "provider.metrics.counts";
+
+    // Debug headers with the statements run before the response, see persistence-dev.properties
+    public final static String HEADERS_PROPERTY = "lebonsandwich.query-headers";
+    public final static String QUERY_COUNT = "X-Query-Count";
+    public final static String QUERY_TIME = "X-Query-Time-Ms";
+    public final static String QUERY_BUDGET_EXCEEDED = "X-Query-Budget-Exceeded";
+    private final static boolean HEADERS = Boolean.getBoolean(HEADERS_PROPERTY);
+
+    private final ConcurrentHashMap<Method, RequestMetrics.Timer> timers = new ConcurrentHashMap<>();
+
+    @Inject
+    RequestMetrics requestMetrics;
+
+    @Context
+    ResourceInfo resourceInfo;
+
+    @Override
+    public void filter(ContainerRequestContext requestContext) throws IOException {
+        Method method = resourceInfo.getResourceMethod();
+
+        if (method == null)
+            return;
+
+        RequestMetrics.Timer timer = timers.get(method);
+        if (timer == null)
+            timer = timers.computeIfAbsent(method, m -> requestMetrics.timer(endpoint(resourceInfo.getResourceClass(), m)));
+
+        requestContext.setProperty(TIMER, timer);
+        requestContext.setProperty(COUNTS, StatementCounter.begin());
+        requestContext.setProperty(START, timer.start());
+    }
+
+    @Override
+    public void filter(ContainerRequestContext requestContext, ContainerResponseContext responseContext) throws IOException {
+        RequestMetrics.Timer timer = (RequestMetrics.Timer) requestContext.getProperty(TIMER);
+
+        if (timer == null)
+            return;
+
+        StatementCounter.Counts counts = (StatementCounter.Counts) requestContext.getProperty(COUNTS);
+        if (HEADERS) {
+            responseContext.getHeaders().putSingle(QUERY_COUNT, counts.getStatements());
+            responseContext.getHeaders().putSingle(QUERY_TIME, String.format("%.3f", counts.getNanos() / 1e6));
+            if (RequestMetrics.isOverBudget(counts))
+                responseContext.getHeaders().putSingle(QUERY_BUDGET_EXCEEDED, true);
+        }
+
+        // Stopped by aroundWriteTo when there is an entity to write
+        if (responseContext.hasEntity()) {
+            requestContext.setProperty(STATUS, responseContext.getStatus());
+            return;
+        }
+
+        requestContext.removeProperty(TIMER);
+        StatementCounter.finish();
+        timer.stop((Long) requestContext.getProperty(START), responseContext.getStatus(), counts);
+    }
+
+    @Override
+    public void aroundWriteTo(WriterInterceptorContext context) throws IOException, WebApplicationException {
+        RequestMetrics.Timer timer = (RequestMetrics.Timer) context.getProperty(TIMER);
+
+        if (timer == null) {
+            context.proceed();
+            return;
+        }
+
+        context.removeProperty(TIMER);
+        Integer status = 500;
+        try {
+            context.proceed();
+            status = (Integer) context.getProperty(STATUS);
+        } finally {
+            // The lazy loadings of the serialization are counted too
+            StatementCounter.finish();
+            timer.stop((Long) context.getProperty(START), status, (StatementCounter.Counts) context.getProperty(COUNTS));
+        }
+    }
+
+    /**
+     * Method that names an endpoint after its HTTP method and its path template, e.g. GET /orders/{id}/status
+     *
+     * @param resourceClass class of the resource
+     * @param method        resource method
+     * @return the name
+     */
+    private static String endpoint(Class<?> resourceClass, Method method) {
+        String httpMethod = "?";
+        for (Annotation annotation : method.getAnnotations()) {
+            HttpMethod designator = annotation.annotationType().getAnnotation(HttpMethod.class);
+            if (designator != null)
+                httpMethod = designator.value();
+        }
+
+        StringBuilder path = new StringBuilder();
+        append(path, resourceClass.getAnnotation(Path.class));
+        append(path, method.getAnnotation(Path.class));
+
+        return httpMethod + " " + (path.length() == 0 ? "/" : path);
+    }
+
+    private static void append(StringBuilder path, Path segment) {
+        if (segment == null)
+            return;
+
+        String value = segment.value();
+        if (!value.startsWith("/"))
+            path.append('/');
+        path.append(value.endsWith("/") ? value.substring(0, value.length() - 1) : value);
+    }
+}
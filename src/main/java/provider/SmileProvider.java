@@ -0,0 +1,67 @@
+package provider;
+
+import com.fasterxml.jackson.core.JsonFactory;
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.databind.AnnotationIntrospector;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.introspect.JacksonAnnotationIntrospector;
+import com.fasterxml.jackson.dataformat.smile.SmileFactory;
+import com.fasterxml.jackson.module.jaxb.JaxbAnnotationIntrospector;
+
+import javax.ws.rs.Produces;
+import javax.ws.rs.WebApplicationException;
+import javax.ws.rs.core.MediaType;
+import javax.ws.rs.core.MultivaluedMap;
+import javax.ws.rs.ext.MessageBodyWriter;
+import javax.ws.rs.ext.Provider;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.lang.annotation.Annotation;
+import java.lang.reflect.Type;
+
+/**
+ * Writes the entities in Smile, the binary JSON of Jackson, for the internal clients that send
+ * Accept: application/x-jackson-smile to the listings
+ * Same names as the JSON (Jackson then JAXB annotations, e.g. _links)
+ */
+@Provider
+@Produces(SmileProvider.APPLICATION_SMILE)
+public class SmileProvider implements MessageBodyWriter<Object> {
+
+    public final static String APPLICATION_SMILE = "application/x-jackson-smile";
+    // For the @Produces of the resources : a client that accepts both gets JSON
+    public final static String APPLICATION_SMILE_QS = APPLICATION_SMILE + ";qs=0.9";
+
+    private final static ObjectMapper MAPPER = mapper(new SmileFactory());
+
+    /**
+     * Method that creates a mapper with the annotations of the entities
+     *
+     * @param factory JsonFactory for JSON, SmileFactory for Smile
+     * @return ObjectMapper
+     */
+    public static ObjectMapper mapper(JsonFactory factory) {
+        ObjectMapper mapper = new ObjectMapper(factory);
+        mapper.setAnnotationIntrospector(AnnotationIntrospector.pair(
+                new JacksonAnnotationIntrospector(), new JaxbAnnotationIntrospector(mapper.getTypeFactory())));
+        // The container closes the response
+        mapper.configure(JsonGenerator.Feature.AUTO_CLOSE_TARGET, false);
+        return mapper;
+    }
+
+    @Override
+    public boolean isWriteable(Class<?> type, Type genericType, Annotation[] annotations, MediaType mediaType) {
+        return true;
+    }
+
+    @Override
+    public long getSize(Object o, Class<?> type, Type genericType, Annotation[] annotations, MediaType mediaType) {
+        return -1;
+    }
+
+    @Override
+    public void writeTo(Object o, Class<?> type, Type genericType, Annotation[] annotations, MediaType mediaType,
+                        MultivaluedMap<String, Object> httpHeaders, OutputStream entityStream) throws IOException, WebApplicationException {
+        MAPPER.writerFor(MAPPER.getTypeFactory().constructType(genericType)).writeValue(entityStream, o);
+    }
+}
@@ -0,0 +1,38 @@
+package provider;
+
+import control.StatementCounter;
+
+import javax.servlet.Filter;
+import javax.servlet.FilterChain;
+import javax.servlet.FilterConfig;
+import javax.servlet.ServletException;
+import javax.servlet.ServletRequest;
+import javax.servlet.ServletResponse;
+import javax.servlet.annotation.WebFilter;
+import java.io.IOException;
+
+/**
+ * Stops counting the statements once the thread is done with a request of /api, whatever happened
+ * MetricsFilter starts on this thread but stops at the response : an exception, an AsyncResponse or
+ * a StreamingOutput written by another thread would leave the counts of the thread to its next request
+ */
+@WebFilter(urlPatterns = "/api/*", asyncSupported = true)
+public class StatementCounterFilter implements Filter {
+
+    @Override
+    public void init(FilterConfig filterConfig) {
+    }
+
+    @Override
+    public void doFilter(ServletRequest request, ServletResponse response, FilterChain chain) throws IOException, ServletException {
+        try {
+            chain.doFilter(request, response);
+        } finally {
+            StatementCounter.finish();
+        }
+    }
+
+    @Override
+    public void destroy() {
+    }
+}
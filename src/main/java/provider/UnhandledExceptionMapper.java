@@ -0,0 +1,60 @@
+package provider;
+
+import javax.ws.rs.WebApplicationException;
+import javax.ws.rs.core.Response;
+import javax.ws.rs.ext.ExceptionMapper;
+import javax.ws.rs.ext.Provider;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+/**
+ * Turns the exceptions that escape the resources and the filters into a 500
+ * Without it the container writes the error and the response filters are skipped : the metrics would never
+ * see these requests end. The exceptions that carry a status (404, 405, a body that can't be read, ...) keep it
+ */
+@Provider
+public class UnhandledExceptionMapper implements ExceptionMapper<Throwable> {
+
+    private final static Logger LOGGER = Logger.getLogger(UnhandledExceptionMapper.class.getName());
+
+    // Thrown by RESTEasy with their status, e.g. 400 for a body that can't be read : not on our classpath
+    private final static String FAILURE = "org.jboss.resteasy.spi.Failure";
+
+    @Override
+    public Response toResponse(Throwable exception) {
+        if (exception instanceof WebApplicationException)
+            return ((WebApplicationException) exception).getResponse();
+
+        Response response = failure(exception);
+        if (response != null)
+            return response;
+
+        LOGGER.log(Level.SEVERE, "Unhandled exception", exception);
+        return Response.status(Response.Status.INTERNAL_SERVER_ERROR).build();
+    }
+
+    /**
+     * Method that gives the response of a failure of RESTEasy
+     *
+     * @param exception thrown
+     * @return Response or null if it's not a failure or it has no status
+     */
+    private static Response failure(Throwable exception) {
+        for (Class<?> type = exception.getClass(); type != null; type = type.getSuperclass()) {
+            if (!type.getName().equals(FAILURE))
+                continue;
+
+            try {
+                Response response = (Response) type.getMethod("getResponse").invoke(exception);
+                int status = (Integer) type.getMethod("getErrorCode").invoke(exception);
+                if (response != null)
+                    return response;
+                return (status > 0) ? Response.status(status).build() : null;
+            } catch (ReflectiveOperationException | ClassCastException e) {
+                return null;
+            }
+        }
+
+        return null;
+    }
+}
@@ -0,0 +1,32 @@
+package provider;
+
+import control.Warmup;
+
+import javax.ejb.EJB;
+import javax.servlet.ServletContextEvent;
+import javax.servlet.ServletContextListener;
+import javax.servlet.annotation.WebListener;
+import java.net.MalformedURLException;
+
+/**
+ * Starts the warmup once deployed, with the logo of the receipts that only the servlet context can find
+ */
+@WebListener
+public class WarmupListener implements ServletContextListener {
+
+    @EJB
+    Warmup warmup;
+
+    @Override
+    public void contextInitialized(ServletContextEvent event) {
+        try {
+            warmup.start(event.getServletContext().getResource("/logo.jpg"));
+        } catch (MalformedURLException e) {
+            warmup.start(null);
+        }
+    }
+
+    @Override
+    public void contextDestroyed(ServletContextEvent event) {
+    }
+}
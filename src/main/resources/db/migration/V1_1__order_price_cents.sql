@@ -0,0 +1,4 @@
+-- The price of an order is kept in cents, the prices in euros are rounded once
+alter table Shipment add column priceCents bigint default 0 not null;
+update Shipment set priceCents = round(price * 100, 0);
+alter table Shipment drop column price;
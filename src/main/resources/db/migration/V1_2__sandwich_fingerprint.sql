@@ -0,0 +1,10 @@
+-- The sandwiches of the orders are compositions, marked by their fingerprint, the catalog is the rest
+alter table Sandwich add column fingerprint varchar(255);
+
+-- Before, an order got a copy of the sandwich of the catalog under a new ID : a sandwich of an order with a twin
+-- (same name and size) in no order is such a copy. It's frozen under its own ID, no new order will share it
+update Sandwich s set fingerprint = s.id
+where exists (select 1 from Shipment_Sandwich o where o.sandwiches_id = s.id)
+  and exists (select 1 from Sandwich t
+              where t.id <> s.id and t.name = s.name and t.size = s.size
+                and not exists (select 1 from Shipment_Sandwich u where u.sandwiches_id = t.id));
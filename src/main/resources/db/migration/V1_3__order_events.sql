@@ -0,0 +1,11 @@
+-- The outbox of the orders, read by /orders/events
+create table OrderEvent (
+    id bigint generated by default as identity,
+    createdAt bigint not null,
+    dateTime varchar(255),
+    orderId varchar(255),
+    price double not null,
+    status integer not null,
+    type varchar(255),
+    primary key (id)
+);
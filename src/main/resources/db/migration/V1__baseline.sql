@@ -0,0 +1,62 @@
+-- Schema of the entities before the migrations, as Hibernate created it with drop-and-create
+-- Such a database is taken as this version, never edit this file : the changes go in the next ones
+
+create table Account (
+    email varchar(255) not null,
+    name varchar(255),
+    password varchar(255),
+    role integer,
+    vipCard double not null,
+    primary key (email)
+);
+
+create table Category (
+    id varchar(255) not null,
+    name varchar(255),
+    primary key (id)
+);
+
+create table Ingredient (
+    id varchar(255) not null,
+    description varchar(255),
+    name varchar(255),
+    price double not null,
+    category_id varchar(255),
+    primary key (id)
+);
+
+create table Sandwich (
+    id varchar(255) not null,
+    description varchar(255),
+    name varchar(255),
+    price double not null,
+    size varchar(255),
+    primary key (id)
+);
+
+create table Sandwich_Ingredient (
+    Sandwich_id varchar(255) not null,
+    ingredientsList_id varchar(255) not null
+);
+
+create table Shipment (
+    id varchar(255) not null,
+    dateTime varchar(255),
+    price double not null,
+    status integer not null,
+    customer_email varchar(255),
+    primary key (id)
+);
+
+-- No primary key : an order can hold the same sandwich twice
+create table Shipment_Sandwich (
+    Shipment_id varchar(255) not null,
+    sandwiches_id varchar(255) not null
+);
+
+alter table Ingredient add constraint FK_Ingredient_Category foreign key (category_id) references Category;
+alter table Sandwich_Ingredient add constraint FK_Sandwich_Ingredient_Ingredient foreign key (ingredientsList_id) references Ingredient;
+alter table Sandwich_Ingredient add constraint FK_Sandwich_Ingredient_Sandwich foreign key (Sandwich_id) references Sandwich;
+alter table Shipment add constraint FK_Shipment_Account foreign key (customer_email) references Account;
+alter table Shipment_Sandwich add constraint FK_Shipment_Sandwich_Sandwich foreign key (sandwiches_id) references Sandwich;
+alter table Shipment_Sandwich add constraint FK_Shipment_Sandwich_Shipment foreign key (Shipment_id) references Shipment;
@@ -0,0 +1,17 @@
+-- Orders listed by status and date, and by customer
+create index IX_Shipment_status on Shipment (status);
+create index IX_Shipment_dateTime on Shipment (dateTime);
+create index IX_Shipment_customer_email on Shipment (customer_email);
+
+-- Ingredients looked up by name and by category
+create index IX_Ingredient_name on Ingredient (name);
+create index IX_Ingredient_category_id on Ingredient (category_id);
+
+-- Both sides of the join tables, the repricing goes from the ingredient to the sandwiches
+create index IX_Sandwich_Ingredient_Sandwich_id on Sandwich_Ingredient (Sandwich_id);
+create index IX_Sandwich_Ingredient_ingredientsList_id on Sandwich_Ingredient (ingredientsList_id);
+create index IX_Shipment_Sandwich_Shipment_id on Shipment_Sandwich (Shipment_id);
+create index IX_Shipment_Sandwich_sandwiches_id on Shipment_Sandwich (sandwiches_id);
+
+-- Purge of the old events
+create index IX_OrderEvent_createdAt on OrderEvent (createdAt);
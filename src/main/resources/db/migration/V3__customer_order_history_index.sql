@@ -0,0 +1,3 @@
+-- The order history of a customer is read by (customer_email, id) : one range of this index per page
+drop index IX_Shipment_customer_email;
+create index IX_Shipment_customer_email_id on Shipment (customer_email, id);
@@ -0,0 +1,2 @@
+-- The admin searches the accounts by the start of the name, the email is already the primary key
+create index IX_Account_name on Account (name);
@@ -0,0 +1,6 @@
+-- Optimistic locking of the entities, the conditional GETs read these columns to build their ETag without loading the rows
+alter table Account add column version bigint default 0 not null;
+alter table Category add column version bigint default 0 not null;
+alter table Ingredient add column version bigint default 0 not null;
+alter table Sandwich add column version bigint default 0 not null;
+alter table Shipment add column version bigint default 0 not null;
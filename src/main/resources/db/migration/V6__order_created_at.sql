@@ -0,0 +1,5 @@
+-- The order history of a customer is read by (customer_email, createdAt, id) : the IDs alone don't follow the time
+-- The creation time of the orders already there is unknown : they come last, by ID
+alter table Shipment add column createdAt bigint default 0 not null;
+drop index IX_Shipment_customer_email_id;
+create index IX_Shipment_customer_email_createdAt on Shipment (customer_email, createdAt, id);